@@ -2,10 +2,17 @@ package com.muzhou.commons.cache.autoconfigure.properties;
 
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.beans.BeanUtils;
 import org.springframework.boot.convert.DurationUnit;
+import org.springframework.util.unit.DataSize;
 
+import java.io.File;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 多级缓存属性配置
@@ -24,6 +31,149 @@ public class CacheProperties {
      */
     private Redis redis = new Redis();
 
+    /**
+     * 缓存穿透防护配置
+     */
+    private Penetration penetration = new Penetration();
+
+    /**
+     * 缓存加载锁配置
+     */
+    private Lock lock = new Lock();
+
+    /**
+     * Redis 读合并配置
+     */
+    private Coalescing coalescing = new Coalescing();
+
+    /**
+     * 热点 key 逻辑过期配置
+     */
+    private LogicalExpire logicalExpire = new LogicalExpire();
+
+    /**
+     * 概率提前刷新配置
+     */
+    private EarlyRefresh earlyRefresh = new EarlyRefresh();
+
+    /**
+     * Redis 值编码配置
+     */
+    private Codec codec = new Codec();
+
+    /**
+     * 堆外缓存配置
+     */
+    private OffHeap offHeap = new OffHeap();
+
+    /**
+     * 本地缓存快照配置
+     */
+    private Snapshot snapshot = new Snapshot();
+
+    /**
+     * Redis 熔断配置
+     */
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    /**
+     * 热点预加载配置
+     */
+    private Preload preload = new Preload();
+
+    /**
+     * 命名缓存区域，区域名 -> 区域配置。未配置的项沿用全局配置
+     */
+    private Map<String, Region> regions = new LinkedHashMap<>();
+
+    /**
+     * 生成默认区域生效的配置：配置了命名区域时只改动堆外容量，取总容量中的一份，其余与全局相同
+     */
+    public CacheProperties forDefaultRegion() {
+        if (regions.isEmpty()) {
+            return this;
+        }
+        CacheProperties properties = new CacheProperties();
+        BeanUtils.copyProperties(this, properties);
+        properties.setOffHeap(offHeapFor(null));
+        return properties;
+    }
+
+    /**
+     * 生成指定区域生效的配置：本地缓存、Redis 和堆外缓存配置复制一份后按区域覆盖，其余配置与全局共用
+     */
+    public CacheProperties forRegion(String name) {
+        Region region = regions.get(name);
+        if (region == null) {
+            throw new IllegalArgumentException("Unknown cache region: " + name);
+        }
+
+        CacheProperties properties = new CacheProperties();
+        BeanUtils.copyProperties(this, properties);
+        Local regionLocal = new Local();
+        BeanUtils.copyProperties(local, regionLocal);
+        Redis regionRedis = new Redis();
+        BeanUtils.copyProperties(redis, regionRedis);
+        Snapshot regionSnapshot = new Snapshot();
+        BeanUtils.copyProperties(snapshot, regionSnapshot);
+
+        regionRedis.setKeyPrefix(region.getKeyPrefix() != null ? region.getKeyPrefix() : name + ":");
+        if (region.getDefaultTtl() != null) {
+            regionRedis.setDefaultTtl(region.getDefaultTtl());
+        }
+        if (region.getExpireAfterWrite() != null) {
+            regionLocal.setExpireAfterWrite(region.getExpireAfterWrite());
+        }
+        if (region.getMaximumSize() != null) {
+            regionLocal.setMaximumSize(region.getMaximumSize());
+        }
+        if (region.getMaximumWeight() != null) {
+            regionLocal.setMaximumWeight(region.getMaximumWeight());
+        }
+        if (region.getHotMaximumSize() != null) {
+            regionLocal.setHotMaximumSize(region.getHotMaximumSize());
+        }
+        if (region.getHotExpireAfterWrite() != null) {
+            regionLocal.setHotExpireAfterWrite(region.getHotExpireAfterWrite());
+        }
+        // 每个区域单独保存快照
+        regionSnapshot.setPath(snapshot.getPath() + "." + name);
+
+        properties.setLocal(regionLocal);
+        properties.setRedis(regionRedis);
+        properties.setSnapshot(regionSnapshot);
+        properties.setOffHeap(offHeapFor(region));
+        properties.setRegions(new LinkedHashMap<>());
+        return properties;
+    }
+
+    /**
+     * 每个区域各自持有一个堆外缓存，总容量 offHeap.capacity 由所有区域分摊：
+     * 指定了 offHeapCapacity 的区域按指定值，剩余容量由默认区域和其余区域平分
+     *
+     * @param region 区域配置，默认区域为空
+     */
+    private OffHeap offHeapFor(Region region) {
+        OffHeap regionOffHeap = new OffHeap();
+        BeanUtils.copyProperties(offHeap, regionOffHeap);
+        if (region != null && region.getOffHeapCapacity() != null) {
+            regionOffHeap.setCapacity(region.getOffHeapCapacity());
+            return regionOffHeap;
+        }
+        long reserved = 0;
+        int shares = 1;
+        for (Region r : regions.values()) {
+            if (r.getOffHeapCapacity() != null) {
+                reserved += r.getOffHeapCapacity().toBytes();
+            } else {
+                shares++;
+            }
+        }
+        long remaining = Math.max(0, offHeap.getCapacity().toBytes() - reserved);
+        regionOffHeap.setCapacity(DataSize.ofBytes(remaining / shares));
+        return regionOffHeap;
+    }
+
     /**
      * 本地缓存配置项
      */
@@ -36,16 +186,37 @@ public class CacheProperties {
         private Duration expireAfterWrite = Duration.ofMinutes(10);
 
         /**
-         * 写入后刷新时间，不配置则不刷新
+         * 写入后刷新时间，不配置则不刷新。刷新时 Redis 中已过期的 key 按 CacheLoaderRegistry 登记的加载器
+         * 从数据源重新加载，没有登记加载器时移除
          */
         @DurationUnit(ChronoUnit.SECONDS)
         private Duration refreshAfterWrite;
 
+        /**
+         * 后台刷新线程数，默认 4
+         */
+        private int refreshThreads = 4;
+
+        /**
+         * 后台刷新任务队列容量，队列满时放弃本次刷新，默认 1000
+         */
+        private int refreshQueueCapacity = 1000;
+
         /**
          * 缓存最大数量，默认 10000
          */
         private long maximumSize = 10000;
 
+        /**
+         * 按内存占用限制缓存大小，例如 64MB。配置后按权重淘汰，maximumSize 不再生效
+         */
+        private DataSize maximumWeight;
+
+        /**
+         * 权重计算方式，默认按估算的堆内存占用
+         */
+        private WeigherType weigher = WeigherType.ESTIMATE;
+
         /**
          * 是否记录统计信息，默认 true
          */
@@ -55,6 +226,33 @@ public class CacheProperties {
          * 是否开启软引用，默认 false
          */
         private boolean softValues = false;
+
+        /**
+         * 热点专区最大数量，默认 1000
+         */
+        private long hotMaximumSize = 1000;
+
+        /**
+         * 热点专区按内存占用限制的大小，配置后 hotMaximumSize 不再生效
+         */
+        private DataSize hotMaximumWeight;
+
+        /**
+         * 热点专区写入后过期时间，默认 1 小时
+         */
+        @DurationUnit(ChronoUnit.SECONDS)
+        private Duration hotExpireAfterWrite = Duration.ofHours(1);
+
+        /**
+         * 跨节点失效消息合并间隔，默认 10 毫秒
+         */
+        @DurationUnit(ChronoUnit.MILLIS)
+        private Duration invalidationInterval = Duration.ofMillis(10);
+
+        /**
+         * 单条失效消息最多包含的 key 数量，默认 500
+         */
+        private int invalidationBatchSize = 500;
     }
 
     /**
@@ -81,7 +279,9 @@ public class CacheProperties {
         private Duration nullValueTtl = Duration.ofMinutes(5);
 
         /**
-         * 缓存键前缀
+         * 缓存键前缀，默认区域的 key 写入 Redis 时加该前缀。
+         * 早期版本未使用前缀，升级后 Redis 中已有的不带前缀的 key 不再被读取和清理，只能等其自然过期；
+         * 需要沿用旧数据时设置为空字符串
          */
         private String keyPrefix = "cache:";
 
@@ -89,5 +289,370 @@ public class CacheProperties {
          * 是否缓存空值，默认true
          */
         private boolean cacheNullValues = true;
+
+        /**
+         * SCAN 每批返回的 key 数量提示，清理和预热按该大小分批处理，默认 500
+         */
+        private int scanCount = 500;
+    }
+
+    /**
+     * 缓存穿透防护配置项
+     */
+    @Data
+    public static class Penetration {
+        /**
+         * 是否开启布隆过滤器防护，默认 false
+         */
+        private boolean enabled = false;
+
+        /**
+         * 预计元素数量，默认 100 万
+         */
+        private long expectedInsertions = 1000000;
+
+        /**
+         * 期望误判率，默认 1%
+         */
+        private double fpp = 0.01;
+
+        /**
+         * 是否同时使用 Redis bitmap 共享过滤器，默认 false
+         */
+        private boolean shared = false;
+
+        /**
+         * 共享过滤器的 Redis key
+         */
+        private String redisKey = "multilevel:bloom";
+
+        /**
+         * 共享过滤器同步到本地的间隔，默认 30 秒
+         */
+        @DurationUnit(ChronoUnit.SECONDS)
+        private Duration syncInterval = Duration.ofSeconds(30);
+
+        /**
+         * 批量预热时每批写入 Redis 的 key 数量，默认 1000
+         */
+        private int seedBatchSize = 1000;
+    }
+
+    /**
+     * 缓存加载锁配置项
+     */
+    @Data
+    public static class Lock {
+        /**
+         * 获取锁的最大等待时间，默认 100 毫秒
+         */
+        @DurationUnit(ChronoUnit.MILLIS)
+        private Duration waitTime = Duration.ofMillis(100);
+
+        /**
+         * 锁自动释放时间，默认 3 秒
+         */
+        @DurationUnit(ChronoUnit.MILLIS)
+        private Duration leaseTime = Duration.ofSeconds(3);
+
+        /**
+         * 抢锁失败后等待持锁者加载完成的最长时间，默认 1 秒
+         */
+        @DurationUnit(ChronoUnit.MILLIS)
+        private Duration loadWaitTimeout = Duration.ofSeconds(1);
+    }
+
+    /**
+     * Redis 读合并配置项
+     */
+    @Data
+    public static class Coalescing {
+        /**
+         * 是否将并发的单 key 读取合并为 MGET，默认 false
+         */
+        private boolean enabled = false;
+
+        /**
+         * 合并窗口，第一个请求到达后最多等待该时间收集同批请求，默认 200 微秒
+         */
+        @DurationUnit(ChronoUnit.MICROS)
+        private Duration window = Duration.ofNanos(200_000);
+
+        /**
+         * 单次 MGET 最多包含的 key 数量，达到后立即发送，默认 64
+         */
+        private int maxBatch = 64;
+
+        /**
+         * 合并读取等待所在批次 MGET 结果的最长时间，超时按 Redis 调用失败处理，默认 2 秒
+         */
+        @DurationUnit(ChronoUnit.MILLIS)
+        private Duration timeout = Duration.ofSeconds(2);
+    }
+
+    /**
+     * 热点 key 逻辑过期配置项
+     */
+    @Data
+    public static class LogicalExpire {
+        /**
+         * 是否开启逻辑过期，默认 false。开启后热点 key 在 Redis 中不设置 TTL，过期后返回旧值并后台重建
+         */
+        private boolean enabled = false;
+
+        /**
+         * 后台重建线程数，默认 2
+         */
+        private int rebuildThreads = 2;
+
+        /**
+         * 后台重建任务队列容量，队列满时放弃本次重建，默认 1000
+         */
+        private int rebuildQueueCapacity = 1000;
+    }
+
+    /**
+     * 概率提前刷新（XFetch）配置项，重建线程池与逻辑过期共用
+     */
+    @Data
+    public static class EarlyRefresh {
+        /**
+         * 是否开启概率提前刷新，默认 false
+         */
+        private boolean enabled = false;
+
+        /**
+         * 提前程度，大于 1 倾向更早刷新，默认 1.0
+         */
+        private double beta = 1.0;
+    }
+
+    /**
+     * 值编码配置项，构建 CodecRedisSerializer 时使用，allowedPackages 同时用于堆外缓存和快照的编码
+     */
+    @Data
+    public static class Codec {
+        /**
+         * 编码结果达到该大小时压缩，默认 1KB，设置为 0 不压缩
+         */
+        private DataSize compressThreshold = DataSize.ofKilobytes(1);
+
+        /**
+         * KryoValueCodec 额外允许编解码的包前缀，缓存值（及其字段）所在的包需要加入，例如 com.example.order.。
+         * java.lang、java.math、java.time、java.util 和缓存组件自身的包始终允许
+         */
+        private List<String> allowedPackages = new ArrayList<>();
+    }
+
+    /**
+     * 堆外缓存配置项
+     */
+    @Data
+    public static class OffHeap {
+        /**
+         * 是否开启堆外缓存，默认 false。开启后本地缓存因容量淘汰的条目转存到堆外
+         */
+        private boolean enabled = false;
+
+        /**
+         * 堆外缓存总容量，默认 1GB，需要同时调整 -XX:MaxDirectMemorySize。
+         * 配置了命名区域时为所有区域的总和，按区域划分，见 {@link Region#getOffHeapCapacity()}
+         */
+        private DataSize capacity = DataSize.ofGigabytes(1);
+
+        /**
+         * 分段数，默认 16，单个分段不能超过 2GB
+         */
+        private int segments = 16;
+
+        /**
+         * 在堆外命中多少次后晋升回本地缓存，默认 2
+         */
+        private int promoteHits = 2;
+    }
+
+    /**
+     * 本地缓存快照配置项
+     */
+    @Data
+    public static class Snapshot {
+        /**
+         * 是否开启快照，默认 false。开启后停机时保存热点和最热的本地缓存条目，启动时恢复
+         */
+        private boolean enabled = false;
+
+        /**
+         * 快照文件路径，同一台机器上的多个实例需要配置不同路径
+         */
+        private String path = System.getProperty("java.io.tmpdir") + File.separator + "multilevel-cache.snapshot";
+
+        /**
+         * 每个本地缓存区域最多保存的条目数，按热度从高到低，默认 10000
+         */
+        private int maxEntries = 10000;
+
+        /**
+         * 快照最长有效期，超过则启动时忽略，默认 5 分钟
+         */
+        @DurationUnit(ChronoUnit.SECONDS)
+        private Duration maxAge = Duration.ofMinutes(5);
+
+        /**
+         * 缓存值的结构版本，写入快照头部，启动时与快照中的不一致则丢弃快照。
+         * 值编码可以容忍增删字段，字段改类型、类改名等不兼容改动发布时需要变更，例如设置为应用版本号
+         */
+        private String schemaVersion = "";
+    }
+
+    /**
+     * Redis 熔断配置项
+     */
+    @Data
+    public static class CircuitBreaker {
+        /**
+         * 是否开启熔断，默认 false。开启后 Redis 出错或变慢时只使用本地缓存，后台探测恢复后自动切回
+         */
+        private boolean enabled = false;
+
+        /**
+         * 慢调用阈值，超过该耗时的 Redis 调用按失败计，默认 200 毫秒
+         */
+        @DurationUnit(ChronoUnit.MILLIS)
+        private Duration slowCallThreshold = Duration.ofMillis(200);
+
+        /**
+         * 统计窗口内失败（含慢调用）占比达到该百分比时熔断，默认 50
+         */
+        private int failureRateThreshold = 50;
+
+        /**
+         * 统计窗口内至少有这么多次调用才判断是否熔断，默认 20
+         */
+        private int minimumCalls = 20;
+
+        /**
+         * 统计窗口长度，默认 10 秒
+         */
+        @DurationUnit(ChronoUnit.SECONDS)
+        private Duration window = Duration.ofSeconds(10);
+
+        /**
+         * 熔断期间 PING 探测 Redis 的间隔，默认 1 秒
+         */
+        @DurationUnit(ChronoUnit.MILLIS)
+        private Duration probeInterval = Duration.ofSeconds(1);
+
+        /**
+         * 探测成功后进入半开状态，连续成功这么多次真实调用后恢复，默认 10
+         */
+        private int halfOpenCalls = 10;
+
+        /**
+         * 近期被淘汰的本地缓存条目最多保留多少个，熔断期间作为旧值返回，默认 10000
+         */
+        private long staleMaximumSize = 10000;
+
+        /**
+         * 被淘汰的条目保留多久，默认 10 分钟
+         */
+        @DurationUnit(ChronoUnit.SECONDS)
+        private Duration staleTtl = Duration.ofMinutes(10);
+
+        /**
+         * 熔断期间未能写入或删除的 key 最多记录多少个，恢复后从 Redis 补删；超过后改为恢复后清理整个区域，默认 100000
+         */
+        private int pendingDeleteMaximumSize = 100000;
+    }
+
+    /**
+     * 热点预加载配置项，需要设置 CacheLoaderRegistry 才生效
+     */
+    @Data
+    public static class Preload {
+        /**
+         * Redis 中剩余 TTL 低于该值的热点 key 会被预加载，应大于热点预加载间隔，默认 2 分钟
+         */
+        @DurationUnit(ChronoUnit.SECONDS)
+        private Duration ahead = Duration.ofMinutes(2);
+
+        /**
+         * 预加载调用数据源的线程数，默认 4
+         */
+        private int threads = 4;
+
+        /**
+         * 预加载任务队列容量，队列满时剩余的 key 留到下一轮，默认 1000
+         */
+        private int queueCapacity = 1000;
+
+        /**
+         * 一轮预加载等待数据源的最长时间，超时的 key 留到下一轮，默认 20 秒。
+         * 实际还受本轮截止时间限制：所有区域合计不超过预加载锁有效期（热点预加载间隔的一半）的 2/3
+         */
+        @DurationUnit(ChronoUnit.SECONDS)
+        private Duration timeout = Duration.ofSeconds(20);
+    }
+
+    /**
+     * 缓存区域配置项，未配置的项沿用全局配置
+     */
+    @Data
+    public static class Region {
+        /**
+         * 区域的 Redis 键前缀，默认为 区域名 + ":"。各区域前缀不能互为前缀，否则清理会波及其他区域
+         */
+        private String keyPrefix;
+
+        /**
+         * Redis 默认过期时间
+         */
+        @DurationUnit(ChronoUnit.SECONDS)
+        private Duration defaultTtl;
+
+        /**
+         * 本地缓存写入后过期时间
+         */
+        @DurationUnit(ChronoUnit.SECONDS)
+        private Duration expireAfterWrite;
+
+        /**
+         * 本地缓存最大数量
+         */
+        private Long maximumSize;
+
+        /**
+         * 本地缓存按内存占用限制的大小
+         */
+        private DataSize maximumWeight;
+
+        /**
+         * 热点专区最大数量
+         */
+        private Long hotMaximumSize;
+
+        /**
+         * 热点专区写入后过期时间
+         */
+        @DurationUnit(ChronoUnit.SECONDS)
+        private Duration hotExpireAfterWrite;
+
+        /**
+         * 本区域的堆外缓存容量，从总容量中扣除。未指定时与默认区域及其他未指定的区域平分剩余容量
+         */
+        private DataSize offHeapCapacity;
+    }
+
+    /**
+     * 本地缓存权重计算方式
+     */
+    public enum WeigherType {
+        /**
+         * 按对象结构估算堆内存占用
+         */
+        ESTIMATE,
+        /**
+         * 按 RedisTemplate 值序列化器的序列化字节数
+         */
+        SERIALIZED
     }
 }
@@ -16,7 +16,7 @@ public class HotKeyProperties {
     private boolean enabled = true;
 
     /**
-     * 热点Key数量阈值，默认1000
+     * 热点Key数量阈值，一个分析周期(analyzeInterval)内的访问次数，默认1000，仅TUMBLING模式生效
      */
     private long hotThreshold = 1000;
 
@@ -40,6 +40,67 @@ public class HotKeyProperties {
      */
     private long preloadInterval = 60;
 
+    /**
+     * 本地访问计数刷入Redis的间隔(毫秒)，默认1000
+     */
+    private long flushInterval = 1000;
+
+    /**
+     * 单个刷入周期内最多统计的Key数量，默认100000
+     */
+    private int maxTrackedKeys = 100000;
+
+    /**
+     * 访问记录队列容量，向上取整为2的幂，队列满时丢弃访问记录，默认65536
+     */
+    private int accessQueueCapacity = 65536;
+
+    /**
+     * 热点统计窗口模式，默认TUMBLING
+     */
+    private WindowMode windowMode = WindowMode.TUMBLING;
+
+    /**
+     * 滑动窗口长度(毫秒)，默认10000，仅SLIDING模式生效
+     */
+    private long slidingWindowLength = 10000;
+
+    /**
+     * 滑动窗口分桶粒度(毫秒)，同时也是热点重新评估的间隔，默认200，仅SLIDING模式生效
+     */
+    private long slidingBucketInterval = 200;
+
+    /**
+     * 滑动窗口热点阈值，一个滑动窗口(slidingWindowLength)内的访问次数，默认100(10秒窗口下约10次/秒)，仅SLIDING模式生效。
+     * 滑动窗口远短于分析周期，不能沿用hotThreshold，调整窗口长度时需按比例调整该值
+     */
+    private long slidingHotThreshold = 100;
+
+    /**
+     * 热点变更广播的合并间隔(毫秒)，间隔内的变更合并为一条消息，默认20
+     */
+    private long broadcastInterval = 20;
+
+    /**
+     * 其他节点广播的热点在本节点的保留时间(毫秒)，发布方每半个周期重新广播，默认60000
+     */
+    private long broadcastHoldTime = 60000;
+
+    /**
+     * 本地Top-K统计每行桶数，越大误差越小，默认2048
+     */
+    private int topKWidth = 2048;
+
+    /**
+     * 本地Top-K统计哈希行数，默认4
+     */
+    private int topKDepth = 4;
+
+    /**
+     * 本地Top-K统计衰减底数，越大长尾Key越难挤掉大流量Key，默认1.08
+     */
+    private double topKDecay = 1.08;
+
     /**
      * 是否开启调试日志，默认false
      */
@@ -94,6 +155,102 @@ public class HotKeyProperties {
         this.preloadInterval = preloadInterval;
     }
 
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+    public void setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    public int getMaxTrackedKeys() {
+        return maxTrackedKeys;
+    }
+
+    public void setMaxTrackedKeys(int maxTrackedKeys) {
+        this.maxTrackedKeys = maxTrackedKeys;
+    }
+
+    public int getAccessQueueCapacity() {
+        return accessQueueCapacity;
+    }
+
+    public void setAccessQueueCapacity(int accessQueueCapacity) {
+        this.accessQueueCapacity = accessQueueCapacity;
+    }
+
+    public WindowMode getWindowMode() {
+        return windowMode;
+    }
+
+    public void setWindowMode(WindowMode windowMode) {
+        this.windowMode = windowMode;
+    }
+
+    public long getSlidingWindowLength() {
+        return slidingWindowLength;
+    }
+
+    public void setSlidingWindowLength(long slidingWindowLength) {
+        this.slidingWindowLength = slidingWindowLength;
+    }
+
+    public long getSlidingBucketInterval() {
+        return slidingBucketInterval;
+    }
+
+    public void setSlidingBucketInterval(long slidingBucketInterval) {
+        this.slidingBucketInterval = slidingBucketInterval;
+    }
+
+    public long getSlidingHotThreshold() {
+        return slidingHotThreshold;
+    }
+
+    public void setSlidingHotThreshold(long slidingHotThreshold) {
+        this.slidingHotThreshold = slidingHotThreshold;
+    }
+
+    public long getBroadcastInterval() {
+        return broadcastInterval;
+    }
+
+    public void setBroadcastInterval(long broadcastInterval) {
+        this.broadcastInterval = broadcastInterval;
+    }
+
+    public long getBroadcastHoldTime() {
+        return broadcastHoldTime;
+    }
+
+    public void setBroadcastHoldTime(long broadcastHoldTime) {
+        this.broadcastHoldTime = broadcastHoldTime;
+    }
+
+    public int getTopKWidth() {
+        return topKWidth;
+    }
+
+    public void setTopKWidth(int topKWidth) {
+        this.topKWidth = topKWidth;
+    }
+
+    public int getTopKDepth() {
+        return topKDepth;
+    }
+
+    public void setTopKDepth(int topKDepth) {
+        this.topKDepth = topKDepth;
+    }
+
+    public double getTopKDecay() {
+        return topKDecay;
+    }
+
+    public void setTopKDecay(double topKDecay) {
+        this.topKDecay = topKDecay;
+    }
+
     public boolean isDebug() {
         return debug;
     }
@@ -101,4 +258,19 @@ public class HotKeyProperties {
     public void setDebug(boolean debug) {
         this.debug = debug;
     }
+
+    /**
+     * 热点统计窗口模式
+     */
+    public enum WindowMode {
+        /**
+         * 固定窗口：访问计数汇总到Redis，每个分析周期读取后清零
+         */
+        TUMBLING,
+
+        /**
+         * 滑动窗口：本地分桶环形计数，每个桶粒度评估一次，亚秒级晋升
+         */
+        SLIDING
+    }
 }
\ No newline at end of file
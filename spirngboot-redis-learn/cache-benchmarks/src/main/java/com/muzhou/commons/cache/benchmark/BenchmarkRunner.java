@@ -0,0 +1,78 @@
+package com.muzhou.commons.cache.benchmark;
+
+import com.muzhou.commons.cache.benchmark.support.BenchmarkRedis;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 按线程数 1、2、4 ... 64 依次运行基准测试，最后汇总每个基准的吞吐量和 p99
+ * <p>
+ * 构建：mvn -P benchmarks package，基准测试模块不在默认构建中
+ * <p>
+ * 用法：java [-Dbench.redis=memory|spawn] [-Dbench.threads=1,8,64] -jar target/benchmarks.jar [基准名正则]
+ * <p>
+ * 每个线程数的完整结果写入 jmh-result-{线程数}t.csv，便于与上一次的结果对比发现回退。
+ */
+public class BenchmarkRunner {
+
+    private static final String DEFAULT_THREADS = "1,2,4,8,16,32,64";
+    private static final String DEFAULT_INCLUDE = "com\\.muzhou\\.commons\\.cache\\.benchmark\\..*";
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : DEFAULT_INCLUDE;
+        String redisMode = System.getProperty(BenchmarkRedis.MODE_PROPERTY, BenchmarkRedis.MODE_MEMORY);
+
+        List<String> summary = new ArrayList<>();
+        for (String value : System.getProperty("bench.threads", DEFAULT_THREADS).split(",")) {
+            int threads = Integer.parseInt(value.trim());
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .jvmArgsAppend("-D" + BenchmarkRedis.MODE_PROPERTY + "=" + redisMode)
+                    .resultFormat(ResultFormatType.CSV)
+                    .result("jmh-result-" + threads + "t.csv")
+                    .build();
+            Collection<RunResult> results = new Runner(options).run();
+            for (RunResult result : results) {
+                summary.add(format(threads, result));
+            }
+        }
+
+        System.out.println();
+        System.out.printf("%-8s %-10s %-60s %16s%n", "threads", "mode", "benchmark", "score");
+        summary.forEach(System.out::println);
+    }
+
+    /**
+     * 吞吐量模式输出 ops/us，采样模式输出 p99 延迟
+     */
+    private static String format(int threads, RunResult result) {
+        Result<?> primary = result.getPrimaryResult();
+        Mode mode = result.getParams().getMode();
+        // 只保留 类名.方法名
+        String fullName = result.getParams().getBenchmark();
+        StringBuilder benchmark = new StringBuilder(
+                fullName.substring(fullName.lastIndexOf('.', fullName.lastIndexOf('.') - 1) + 1));
+        for (String key : result.getParams().getParamsKeys()) {
+            benchmark.append(' ').append(key).append('=').append(result.getParams().getParam(key));
+        }
+
+        if (mode == Mode.SampleTime) {
+            double p99 = primary.getStatistics().getPercentile(99.0);
+            return String.format("%-8d %-10s %-60s %12.3f %s (p99)", threads, mode.shortLabel(), benchmark,
+                    p99, primary.getScoreUnit());
+        }
+        return String.format("%-8d %-10s %-60s %12.3f %s", threads, mode.shortLabel(), benchmark,
+                primary.getScore(), primary.getScoreUnit());
+    }
+}
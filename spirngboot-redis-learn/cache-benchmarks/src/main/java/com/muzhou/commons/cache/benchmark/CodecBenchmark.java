@@ -0,0 +1,178 @@
+package com.muzhou.commons.cache.benchmark;
+
+import com.muzhou.commons.cache.autoconfigure.properties.CacheProperties;
+import com.muzhou.commons.cache.core.codec.CodecRedisSerializer;
+import com.muzhou.commons.cache.core.codec.KryoValueCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.util.unit.DataSize;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis 值编码对比：JDK 序列化、JSON、Kryo、Kryo + 压缩
+ * <p>
+ * 分别对单个商品和 200 个商品的列表测量编码、解码耗时，写入 Redis 的字节数在每轮开始时打印。
+ * kryo+deflate 按默认的 commons.cache.codec.compress-threshold 构建。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({"jdk", "json", "kryo", "kryo+deflate"})
+    private String serializer;
+
+    @Param({"single", "list200"})
+    private String sample;
+
+    private RedisSerializer<Object> redisSerializer;
+    private Object value;
+    private byte[] bytes;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        RedisSerializer<Object> jdk = (RedisSerializer<Object>) (RedisSerializer<?>) new JdkSerializationRedisSerializer();
+        CacheProperties.Codec codec = new CacheProperties.Codec();
+        codec.getAllowedPackages().add(Product.class.getPackage().getName() + ".");
+        switch (serializer) {
+            case "jdk":
+                redisSerializer = jdk;
+                break;
+            case "json":
+                redisSerializer = new GenericJackson2JsonRedisSerializer();
+                break;
+            case "kryo":
+                codec.setCompressThreshold(DataSize.ofBytes(0));
+                redisSerializer = new CodecRedisSerializer(new KryoValueCodec(codec.getAllowedPackages()), jdk, codec);
+                break;
+            default:
+                redisSerializer = new CodecRedisSerializer(new KryoValueCodec(codec.getAllowedPackages()), jdk, codec);
+        }
+
+        if ("single".equals(sample)) {
+            value = product(1);
+        } else {
+            List<Product> list = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                list.add(product(i));
+            }
+            value = list;
+        }
+        bytes = redisSerializer.serialize(value);
+        System.out.printf("%n%s / %s: %d bytes%n", serializer, sample, bytes.length);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return redisSerializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return redisSerializer.deserialize(bytes);
+    }
+
+    private static Product product(int i) {
+        Product product = new Product();
+        product.setId(100000L + i);
+        product.setProductCode("SKU-" + (100000 + i));
+        product.setProductName("商品名称-" + i);
+        product.setCategory("electronics/phone");
+        product.setStock(1000 + i);
+        product.setPrice(new BigDecimal("1999.00"));
+        product.setUpdateTime(new Date(1700000000000L + i));
+        return product;
+    }
+
+    public static class Product implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long id;
+        private String productCode;
+        private String productName;
+        private String category;
+        private Integer stock;
+        private BigDecimal price;
+        private Date updateTime;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getProductCode() {
+            return productCode;
+        }
+
+        public void setProductCode(String productCode) {
+            this.productCode = productCode;
+        }
+
+        public String getProductName() {
+            return productName;
+        }
+
+        public void setProductName(String productName) {
+            this.productName = productName;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public void setCategory(String category) {
+            this.category = category;
+        }
+
+        public Integer getStock() {
+            return stock;
+        }
+
+        public void setStock(Integer stock) {
+            this.stock = stock;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        public void setPrice(BigDecimal price) {
+            this.price = price;
+        }
+
+        public Date getUpdateTime() {
+            return updateTime;
+        }
+
+        public void setUpdateTime(Date updateTime) {
+            this.updateTime = updateTime;
+        }
+    }
+}
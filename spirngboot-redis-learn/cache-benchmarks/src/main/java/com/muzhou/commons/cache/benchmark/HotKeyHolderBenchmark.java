@@ -0,0 +1,93 @@
+package com.muzhou.commons.cache.benchmark;
+
+import com.muzhou.commons.cache.core.hotkey.HotKeyHolder;
+import com.muzhou.commons.cache.core.hotkey.impl.DefaultHotKeyHolder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link HotKeyHolder#isHotKey} 的开销，每次读取选择本地缓存区域时都会调用
+ * <ul>
+ *     <li>isHotKey：只读并发</li>
+ *     <li>refreshContention：7 个读线程 + 1 个线程持续刷新热点集合，对应热点分析结果落地时的竞争</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotKeyHolderBenchmark {
+
+    private static final int HOT_KEY_COUNT = 100;
+
+    private HotKeyHolder holder;
+    private String[] samples;
+    private Set<String> hotKeys;
+    private Set<String> shiftedHotKeys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        samples = RecordAccessBenchmark.skewedSamples();
+        hotKeys = hotKeys(0);
+        // 与 hotKeys 一半重叠，刷新时既有新增也有移除
+        shiftedHotKeys = hotKeys(HOT_KEY_COUNT / 2);
+        holder = new DefaultHotKeyHolder();
+        holder.refreshHotKeys(hotKeys);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private int cursor;
+        private boolean shifted;
+
+        String next(String[] samples) {
+            cursor = (cursor + 1) & (RecordAccessBenchmark.SAMPLE_SIZE - 1);
+            return samples[cursor];
+        }
+    }
+
+    @Benchmark
+    public boolean isHotKey(ThreadState state) {
+        return holder.isHotKey(state.next(samples));
+    }
+
+    @Benchmark
+    @Group("refreshContention")
+    @GroupThreads(7)
+    public boolean reader(ThreadState state) {
+        return holder.isHotKey(state.next(samples));
+    }
+
+    @Benchmark
+    @Group("refreshContention")
+    @GroupThreads(1)
+    public void refresher(ThreadState state) {
+        state.shifted = !state.shifted;
+        holder.refreshHotKeys(state.shifted ? shiftedHotKeys : hotKeys);
+    }
+
+    private static Set<String> hotKeys(int offset) {
+        Set<String> keys = new HashSet<>();
+        for (int i = offset; i < offset + HOT_KEY_COUNT; i++) {
+            keys.add("key:" + i);
+        }
+        return keys;
+    }
+}
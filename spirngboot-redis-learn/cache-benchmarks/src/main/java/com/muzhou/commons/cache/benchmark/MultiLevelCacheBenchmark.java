@@ -0,0 +1,153 @@
+package com.muzhou.commons.cache.benchmark;
+
+import com.muzhou.commons.cache.autoconfigure.properties.CacheProperties;
+import com.muzhou.commons.cache.autoconfigure.properties.HotKeyProperties;
+import com.muzhou.commons.cache.benchmark.support.BenchmarkRedis;
+import com.muzhou.commons.cache.benchmark.support.LocalDistributedLock;
+import com.muzhou.commons.cache.core.cache.impl.DefaultMultiLevelCacheManager;
+import com.muzhou.commons.cache.core.hotkey.impl.TopKHotKeyManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * {@link DefaultMultiLevelCacheManager#get} 各路径的开销
+ * <ul>
+ *     <li>l1Hit：本地缓存命中</li>
+ *     <li>l2Hit：本地未命中、Redis 命中。每次先清除本地缓存，清除本身的开销见 evictLocalBaseline</li>
+ *     <li>missWithLock：本地和 Redis 均未命中，加锁、调用数据源、回写 Redis。
+ *     每个线程在固定数量的 key 上循环，每次先从本地和 Redis 删除，清除本身的开销见 evictBaseline</li>
+ *     <li>l1HitAsync、missWithLockAsync：{@link DefaultMultiLevelCacheManager#getAsync} 的对应路径，计入等待结果完成的时间</li>
+ * </ul>
+ * 加载锁使用进程内实现，Redis 由 {@link BenchmarkRedis} 提供。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MultiLevelCacheBenchmark {
+
+    private static final int KEY_COUNT = 1024;
+    private static final int MISS_KEY_COUNT = 1024;
+    private static final long TTL_SECONDS = 3600;
+    private static final Callable<String> LOADER = () -> "loaded";
+    private static final Supplier<CompletableFuture<String>> ASYNC_LOADER =
+            () -> CompletableFuture.completedFuture("loaded");
+
+    private BenchmarkRedis redis;
+    private TopKHotKeyManager hotKeyManager;
+    private DefaultMultiLevelCacheManager cacheManager;
+    private String[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        redis = BenchmarkRedis.start();
+        hotKeyManager = new TopKHotKeyManager(new HotKeyProperties());
+        cacheManager = new DefaultMultiLevelCacheManager(redis.getRedisTemplate(), hotKeyManager,
+                new CacheProperties(), new LocalDistributedLock());
+        cacheManager.afterPropertiesSet();
+
+        keys = new String[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = "bench:" + i;
+            cacheManager.put(keys[i], "value-" + i, TTL_SECONDS);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        cacheManager.destroy();
+        hotKeyManager.destroy();
+        redis.close();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private static final AtomicInteger THREAD_IDS = new AtomicInteger();
+
+        private final String[] missKeys = new String[MISS_KEY_COUNT];
+        private int cursor = ThreadLocalRandom.current().nextInt(KEY_COUNT);
+        private int missCursor;
+
+        public ThreadState() {
+            // 每个线程使用独立的 key，不在同一把加载锁上竞争
+            int threadId = THREAD_IDS.incrementAndGet();
+            for (int i = 0; i < MISS_KEY_COUNT; i++) {
+                missKeys[i] = "miss:" + threadId + ":" + i;
+            }
+        }
+
+        String nextKey(String[] keys) {
+            cursor = (cursor + 1) & (KEY_COUNT - 1);
+            return keys[cursor];
+        }
+
+        /**
+         * 在固定数量的 key 上循环，本地缓存和 Redis 的数据量不随迭代次数增长
+         */
+        String nextMissKey() {
+            missCursor = (missCursor + 1) & (MISS_KEY_COUNT - 1);
+            return missKeys[missCursor];
+        }
+    }
+
+    @Benchmark
+    public Object l1Hit(ThreadState state) {
+        return cacheManager.get(state.nextKey(keys), LOADER, TTL_SECONDS);
+    }
+
+    @Benchmark
+    public Object l2Hit(ThreadState state) {
+        String key = state.nextKey(keys);
+        cacheManager.evictLocal(Collections.singletonList(key));
+        return cacheManager.get(key, LOADER, TTL_SECONDS);
+    }
+
+    @Benchmark
+    public void evictLocalBaseline(ThreadState state) {
+        cacheManager.evictLocal(Collections.singletonList(state.nextKey(keys)));
+    }
+
+    @Benchmark
+    public void evictBaseline(ThreadState state) {
+        cacheManager.evict(state.nextMissKey());
+    }
+
+    @Benchmark
+    public Object missWithLock(ThreadState state) {
+        String key = state.nextMissKey();
+        cacheManager.evict(key);
+        return cacheManager.get(key, LOADER, TTL_SECONDS);
+    }
+
+    @Benchmark
+    public Object l1HitAsync(ThreadState state) {
+        return cacheManager.getAsync(state.nextKey(keys), ASYNC_LOADER, TTL_SECONDS).join();
+    }
+
+    @Benchmark
+    public Object missWithLockAsync(ThreadState state) {
+        String key = state.nextMissKey();
+        cacheManager.evict(key);
+        return cacheManager.getAsync(key, ASYNC_LOADER, TTL_SECONDS).join();
+    }
+}
@@ -0,0 +1,101 @@
+package com.muzhou.commons.cache.benchmark;
+
+import com.muzhou.commons.cache.autoconfigure.properties.HotKeyProperties;
+import com.muzhou.commons.cache.benchmark.support.BenchmarkRedis;
+import com.muzhou.commons.cache.core.hotkey.HotKeyManager;
+import com.muzhou.commons.cache.core.hotkey.impl.RedisHotKeyManager;
+import com.muzhou.commons.cache.core.hotkey.impl.TopKHotKeyManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每次读取都会调用的 {@link HotKeyManager#recordAccess} 的开销
+ * <p>
+ * key 按偏斜分布抽样（少数 key 占大部分访问），接近真实流量下计数结构的竞争情况。
+ * topk 为进程内 HeavyKeeper，sliding 为 RedisHotKeyManager 的本地滑动窗口。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecordAccessBenchmark {
+
+    static final int KEY_SPACE = 100_000;
+    static final int SAMPLE_SIZE = 1 << 16;
+
+    @Param({"topk", "sliding"})
+    private String manager;
+
+    private BenchmarkRedis redis;
+    private HotKeyManager hotKeyManager;
+    private String[] samples;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        samples = skewedSamples();
+        HotKeyProperties properties = new HotKeyProperties();
+        if ("topk".equals(manager)) {
+            hotKeyManager = new TopKHotKeyManager(properties);
+            return;
+        }
+        redis = BenchmarkRedis.start();
+        properties.setWindowMode(HotKeyProperties.WindowMode.SLIDING);
+        hotKeyManager = new RedisHotKeyManager(redis.getRedisTemplate(), properties);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (hotKeyManager instanceof TopKHotKeyManager) {
+            ((TopKHotKeyManager) hotKeyManager).destroy();
+        } else {
+            ((RedisHotKeyManager) hotKeyManager).destroy();
+        }
+        if (redis != null) {
+            redis.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private int cursor = ThreadLocalRandom.current().nextInt(SAMPLE_SIZE);
+
+        String next(String[] samples) {
+            cursor = (cursor + 1) & (SAMPLE_SIZE - 1);
+            return samples[cursor];
+        }
+    }
+
+    @Benchmark
+    public void recordAccess(ThreadState state) {
+        hotKeyManager.recordAccess(state.next(samples));
+    }
+
+    /**
+     * 按 r^3 放大的偏斜分布，约 10% 的访问集中在前 0.1% 的 key 上
+     */
+    static String[] skewedSamples() {
+        String[] samples = new String[SAMPLE_SIZE];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            double r = random.nextDouble();
+            samples[i] = "key:" + (int) (KEY_SPACE * r * r * r);
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,122 @@
+package com.muzhou.commons.cache.benchmark.support;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压测使用的 Redis，由系统属性 bench.redis 选择：
+ * <ul>
+ *     <li>memory（默认）：进程内替身 {@link InMemoryRedisTemplate}，不依赖外部环境</li>
+ *     <li>spawn：在空闲端口启动本机的 redis-server（需要在 PATH 中），关闭持久化，压测结束后停止</li>
+ * </ul>
+ */
+public final class BenchmarkRedis implements AutoCloseable {
+
+    public static final String MODE_PROPERTY = "bench.redis";
+    public static final String MODE_MEMORY = "memory";
+    public static final String MODE_SPAWN = "spawn";
+
+    private static final long STARTUP_TIMEOUT_MILLIS = 5000;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final Process process;
+    private final LettuceConnectionFactory connectionFactory;
+
+    private BenchmarkRedis(RedisTemplate<String, Object> redisTemplate, Process process,
+                           LettuceConnectionFactory connectionFactory) {
+        this.redisTemplate = redisTemplate;
+        this.process = process;
+        this.connectionFactory = connectionFactory;
+    }
+
+    public static BenchmarkRedis start() throws Exception {
+        String mode = System.getProperty(MODE_PROPERTY, MODE_MEMORY);
+        if (MODE_MEMORY.equals(mode)) {
+            return new BenchmarkRedis(new InMemoryRedisTemplate(), null, null);
+        }
+        if (!MODE_SPAWN.equals(mode)) {
+            throw new IllegalArgumentException("Unknown " + MODE_PROPERTY + ": " + mode);
+        }
+
+        int port = freePort();
+        File log = File.createTempFile("bench-redis-", ".log");
+        log.deleteOnExit();
+        Process process = new ProcessBuilder("redis-server",
+                "--port", String.valueOf(port),
+                "--save", "",
+                "--appendonly", "no")
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+
+        LettuceConnectionFactory connectionFactory =
+                new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", port));
+        connectionFactory.afterPropertiesSet();
+        try {
+            awaitStarted(connectionFactory, process, log);
+        } catch (Exception e) {
+            connectionFactory.destroy();
+            process.destroyForcibly();
+            throw e;
+        }
+
+        RedisTemplate<String, Object> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setValueSerializer(new JdkSerializationRedisSerializer());
+        redisTemplate.afterPropertiesSet();
+        return new BenchmarkRedis(redisTemplate, process, connectionFactory);
+    }
+
+    public RedisTemplate<String, Object> getRedisTemplate() {
+        return redisTemplate;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        if (connectionFactory != null) {
+            connectionFactory.destroy();
+        }
+        if (process != null) {
+            process.destroy();
+            if (!process.waitFor(STARTUP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void awaitStarted(LettuceConnectionFactory connectionFactory, Process process, File log)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MILLIS;
+        while (true) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("redis-server exited with code " + process.exitValue()
+                        + ", see " + log);
+            }
+            try (RedisConnection connection = connectionFactory.getConnection()) {
+                connection.ping();
+                return;
+            } catch (Exception e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IllegalStateException("redis-server not ready in " + STARTUP_TIMEOUT_MILLIS + "ms", e);
+                }
+                Thread.sleep(50);
+            }
+        }
+    }
+}
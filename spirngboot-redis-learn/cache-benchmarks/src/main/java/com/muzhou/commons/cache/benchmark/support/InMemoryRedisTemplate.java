@@ -0,0 +1,95 @@
+package com.muzhou.commons.cache.benchmark.support;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程内的 Redis 替身，只实现缓存管理器读写路径用到的字符串命令
+ * <p>
+ * 没有网络和序列化开销，测得的是缓存管理器自身的代价；数据存放在有容量上限的 Caffeine 中，
+ * 不处理 TTL，长时间压测不会无限增长。未实现的命令抛出 UnsupportedOperationException。
+ */
+public class InMemoryRedisTemplate extends RedisTemplate<String, Object> {
+
+    private static final long MAXIMUM_SIZE = 1_000_000;
+
+    private final ConcurrentMap<String, Object> store = Caffeine.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .<String, Object>build()
+            .asMap();
+
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, Object> valueOperations = (ValueOperations<String, Object>) Proxy.newProxyInstance(
+            ValueOperations.class.getClassLoader(),
+            new Class<?>[]{ValueOperations.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "get":
+                        return store.get((String) args[0]);
+                    case "set":
+                        store.put((String) args[0], args[1]);
+                        return null;
+                    case "setIfAbsent":
+                        return store.putIfAbsent((String) args[0], args[1]) == null;
+                    case "multiGet":
+                        List<Object> values = new ArrayList<>();
+                        for (Object key : (Collection<?>) args[0]) {
+                            values.add(store.get((String) key));
+                        }
+                        return values;
+                    case "getOperations":
+                        return this;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+
+    @Override
+    public ValueOperations<String, Object> opsForValue() {
+        return valueOperations;
+    }
+
+    @Override
+    public Boolean delete(String key) {
+        return store.remove(key) != null;
+    }
+
+    @Override
+    public Long delete(Collection<String> keys) {
+        long count = 0;
+        for (String key : keys) {
+            if (store.remove(key) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Long unlink(Collection<String> keys) {
+        return delete(keys);
+    }
+
+    @Override
+    public Boolean expire(String key, long timeout, TimeUnit unit) {
+        return store.containsKey(key);
+    }
+
+    @Override
+    public Boolean hasKey(String key) {
+        return store.containsKey(key);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        // 不需要连接工厂
+    }
+}
@@ -0,0 +1,52 @@
+package com.muzhou.commons.cache.benchmark.support;
+
+import com.muzhou.commons.cache.core.lock.DistributedLock;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 进程内的加载锁，代替 Redisson，压测时只计入缓存管理器加锁流程本身的开销
+ * <p>
+ * 不支持重入，不处理 leaseTime。同步持有者为线程，异步持有者为 ownerId。
+ */
+public class LocalDistributedLock implements DistributedLock {
+
+    private static final long SPIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final ConcurrentHashMap<String, Object> owners = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean tryLock(String key, long waitTime, long leaseTime, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(waitTime);
+        Thread current = Thread.currentThread();
+        while (owners.putIfAbsent(key, current) != null) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            LockSupport.parkNanos(SPIN_PARK_NANOS);
+        }
+        return true;
+    }
+
+    @Override
+    public void unlock(String key) {
+        owners.remove(key, Thread.currentThread());
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryLockAsync(String key, long ownerId, long leaseTime, TimeUnit unit) {
+        return CompletableFuture.completedFuture(owners.putIfAbsent(key, ownerId) == null);
+    }
+
+    @Override
+    public CompletableFuture<Void> unlockAsync(String key, long ownerId) {
+        owners.remove(key, ownerId);
+        return CompletableFuture.completedFuture(null);
+    }
+}
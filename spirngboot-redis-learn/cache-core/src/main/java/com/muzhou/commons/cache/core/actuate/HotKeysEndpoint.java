@@ -0,0 +1,41 @@
+package com.muzhou.commons.cache.core.actuate;
+
+import com.muzhou.commons.cache.core.hotkey.HotKeyManager;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 热点 key 端点：/actuator/hotkeys 按访问计数降序列出当前热点，
+ * /actuator/hotkeys/{key} 查询单个 key 是否为热点
+ */
+@Endpoint(id = "hotkeys")
+public class HotKeysEndpoint {
+
+    private final HotKeyManager hotKeyManager;
+
+    public HotKeysEndpoint(HotKeyManager hotKeyManager) {
+        this.hotKeyManager = hotKeyManager;
+    }
+
+    @ReadOperation
+    public Map<String, Object> hotKeys() {
+        Map<String, Long> scores = hotKeyManager.getHotKeyScores();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", scores.size());
+        result.put("hotKeys", scores);
+        return result;
+    }
+
+    @ReadOperation
+    public Map<String, Object> hotKey(@Selector String key) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("key", key);
+        result.put("hot", hotKeyManager.isHotKey(key));
+        result.put("score", hotKeyManager.getHotKeyScores().get(key));
+        return result;
+    }
+}
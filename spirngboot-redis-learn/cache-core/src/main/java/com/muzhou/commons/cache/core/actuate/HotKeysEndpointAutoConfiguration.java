@@ -0,0 +1,28 @@
+package com.muzhou.commons.cache.core.actuate;
+
+import com.muzhou.commons.cache.core.hotkey.HotKeyManager;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * 注册 {@link HotKeysEndpoint}
+ * <p>
+ * 需要引入 actuator、容器中存在 {@link HotKeyManager}，并通过 management.endpoints.web.exposure.include 暴露 hotkeys 端点。
+ */
+@AutoConfiguration
+@ConditionalOnClass({Endpoint.class, ConditionalOnAvailableEndpoint.class})
+@ConditionalOnAvailableEndpoint(endpoint = HotKeysEndpoint.class)
+public class HotKeysEndpointAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnBean(HotKeyManager.class)
+    public HotKeysEndpoint hotKeysEndpoint(HotKeyManager hotKeyManager) {
+        return new HotKeysEndpoint(hotKeyManager);
+    }
+}
@@ -0,0 +1,69 @@
+package com.muzhou.commons.cache.core.bus;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 合并批量发布器
+ * <p>
+ * 在一个发布间隔内提交的 key 事件先在本地缓冲，同一 key 只保留最后一次操作，
+ * 间隔到达或缓冲达到上限时合并成一条 {@link KeyEventBatch} 发布。
+ */
+@Slf4j
+public class BatchPublisher {
+
+    private final MessageBus messageBus;
+    private final String topic;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+
+    private Map<String, Character> pending = new LinkedHashMap<>();
+
+    public BatchPublisher(MessageBus messageBus,
+                          String topic,
+                          long intervalMillis,
+                          int maxBatchSize,
+                          ScheduledExecutorService scheduler) {
+        this.messageBus = messageBus;
+        this.topic = topic;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = scheduler;
+
+        scheduler.scheduleWithFixedDelay(this::flush, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void offer(String key, char operation) {
+        boolean full;
+        synchronized (this) {
+            // 先移除再放入，使该 key 排到本批次末尾，保持与操作发生顺序一致
+            pending.remove(key);
+            pending.put(key, operation);
+            full = pending.size() >= maxBatchSize;
+        }
+        if (full) {
+            scheduler.execute(this::flush);
+        }
+    }
+
+    public void flush() {
+        Map<String, Character> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new LinkedHashMap<>();
+        }
+
+        try {
+            messageBus.publish(topic, new KeyEventBatch(messageBus.getNodeId(), batch).encode());
+        } catch (Exception e) {
+            log.error("[MessageBus] Publish batch failed, topic: {}, size: {}, error: {}",
+                    topic, batch.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.muzhou.commons.cache.core.bus;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 一批 key 事件的消息体
+ * <p>
+ * 文本格式：首行为发送方节点标识，其后每行一个事件，首字符为操作符、其余为 key。
+ * key 中的反斜杠和换行符分别转义为 \\ 和 \n，任意 key 都不会被拆成多行。
+ */
+public class KeyEventBatch {
+
+    private static final char LINE_SEPARATOR = '\n';
+    private static final char ESCAPE = '\\';
+
+    private final String nodeId;
+
+    /**
+     * key -> 操作符，保持事件顺序
+     */
+    private final Map<String, Character> events;
+
+    public KeyEventBatch(String nodeId, Map<String, Character> events) {
+        this.nodeId = nodeId;
+        this.events = events;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public Map<String, Character> getEvents() {
+        return Collections.unmodifiableMap(events);
+    }
+
+    public String encode() {
+        StringBuilder builder = new StringBuilder(nodeId.length() + events.size() * 32);
+        builder.append(nodeId);
+        for (Map.Entry<String, Character> event : events.entrySet()) {
+            builder.append(LINE_SEPARATOR).append(event.getValue());
+            appendEscaped(builder, event.getKey());
+        }
+        return builder.toString();
+    }
+
+    private static void appendEscaped(StringBuilder builder, String key) {
+        if (key.indexOf(ESCAPE) < 0 && key.indexOf(LINE_SEPARATOR) < 0) {
+            builder.append(key);
+            return;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c == ESCAPE) {
+                builder.append(ESCAPE).append(ESCAPE);
+            } else if (c == LINE_SEPARATOR) {
+                builder.append(ESCAPE).append('n');
+            } else {
+                builder.append(c);
+            }
+        }
+    }
+
+    private static String unescape(String message, int start, int end) {
+        int escape = message.indexOf(ESCAPE, start);
+        if (escape < 0 || escape >= end) {
+            return message.substring(start, end);
+        }
+        StringBuilder builder = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = message.charAt(i);
+            if (c == ESCAPE && i + 1 < end) {
+                char next = message.charAt(++i);
+                builder.append(next == 'n' ? LINE_SEPARATOR : next);
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    public static KeyEventBatch decode(String message) {
+        int lineEnd = message.indexOf(LINE_SEPARATOR);
+        if (lineEnd < 0) {
+            return new KeyEventBatch(message, Collections.emptyMap());
+        }
+
+        String nodeId = message.substring(0, lineEnd);
+        Map<String, Character> events = new LinkedHashMap<>();
+        int start = lineEnd + 1;
+        while (start < message.length()) {
+            int end = message.indexOf(LINE_SEPARATOR, start);
+            if (end < 0) {
+                end = message.length();
+            }
+            if (end - start > 1) {
+                events.put(unescape(message, start + 1, end), message.charAt(start));
+            }
+            start = end + 1;
+        }
+        return new KeyEventBatch(nodeId, events);
+    }
+}
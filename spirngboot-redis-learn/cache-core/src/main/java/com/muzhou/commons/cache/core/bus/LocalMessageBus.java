@@ -0,0 +1,64 @@
+package com.muzhou.commons.cache.core.bus;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 进程内消息总线，用于单机部署和测试
+ * <p>
+ * 通过 {@link #newNode()} 创建的总线共享同一组订阅者，可在一个 JVM 内模拟多个节点。
+ * 消息在发布线程上同步投递。
+ */
+@Slf4j
+public class LocalMessageBus implements MessageBus {
+
+    private final Map<String, List<Consumer<String>>> subscribers;
+    private final String nodeId;
+
+    public LocalMessageBus() {
+        this(new ConcurrentHashMap<>());
+    }
+
+    private LocalMessageBus(Map<String, List<Consumer<String>>> subscribers) {
+        this.subscribers = subscribers;
+        this.nodeId = UUID.randomUUID().toString();
+    }
+
+    /**
+     * 创建一个与当前总线互通的新节点
+     */
+    public LocalMessageBus newNode() {
+        return new LocalMessageBus(subscribers);
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void publish(String topic, String message) {
+        List<Consumer<String>> listeners = subscribers.get(topic);
+        if (listeners == null) {
+            return;
+        }
+        for (Consumer<String> listener : listeners) {
+            try {
+                listener.accept(message);
+            } catch (Exception e) {
+                log.error("[MessageBus] Deliver message failed, topic: {}, error: {}", topic, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(String topic, Consumer<String> listener) {
+        subscribers.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+}
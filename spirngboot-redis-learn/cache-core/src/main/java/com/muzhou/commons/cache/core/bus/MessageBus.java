@@ -0,0 +1,21 @@
+package com.muzhou.commons.cache.core.bus;
+
+import java.util.function.Consumer;
+
+/**
+ * 节点间消息总线
+ * <p>
+ * 与 Redis pub/sub 语义一致：消息会投递给所有订阅者，包括发布者所在节点自身，
+ * 需要过滤自身消息的订阅方可以比对 {@link #getNodeId()}。
+ */
+public interface MessageBus {
+
+    /**
+     * 当前节点标识，进程内唯一
+     */
+    String getNodeId();
+
+    void publish(String topic, String message);
+
+    void subscribe(String topic, Consumer<String> listener);
+}
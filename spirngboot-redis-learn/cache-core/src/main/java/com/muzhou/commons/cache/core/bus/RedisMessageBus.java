@@ -0,0 +1,73 @@
+package com.muzhou.commons.cache.core.bus;
+
+import io.micrometer.core.instrument.util.NamedThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * 基于 Redis pub/sub 的消息总线
+ * <p>
+ * 消息体按 UTF-8 原样收发，不经过 RedisTemplate 的值序列化器。
+ * 订阅回调在单个线程上串行执行，保证同一节点收到的消息有序。
+ */
+@Slf4j
+public class RedisMessageBus implements MessageBus {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisMessageListenerContainer container;
+    private final ExecutorService dispatcher;
+    private final String nodeId;
+
+    public RedisMessageBus(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+        this.nodeId = UUID.randomUUID().toString();
+        this.dispatcher = Executors.newSingleThreadExecutor(new NamedThreadFactory("cache-bus-"));
+
+        RedisConnectionFactory connectionFactory = redisTemplate.getConnectionFactory();
+        this.container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(dispatcher);
+        container.afterPropertiesSet();
+        container.start();
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void publish(String topic, String message) {
+        byte[] rawTopic = topic.getBytes(StandardCharsets.UTF_8);
+        byte[] rawMessage = message.getBytes(StandardCharsets.UTF_8);
+        redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(rawTopic, rawMessage));
+    }
+
+    @Override
+    public void subscribe(String topic, Consumer<String> listener) {
+        container.addMessageListener((message, pattern) -> {
+            try {
+                listener.accept(new String(message.getBody(), StandardCharsets.UTF_8));
+            } catch (Exception e) {
+                log.error("[MessageBus] Deliver message failed, topic: {}, error: {}", topic, e.getMessage());
+            }
+        }, new ChannelTopic(topic));
+    }
+
+    @PreDestroy
+    public void destroy() throws Exception {
+        container.destroy();
+        dispatcher.shutdownNow();
+    }
+}
@@ -1,13 +1,48 @@
 package com.muzhou.commons.cache.core.cache;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public interface MultiLevelCacheManager {
 
+    /**
+     * 读取，本地缓存 -> Redis -> valueLoader
+     *
+     * @param ttlSeconds Redis 过期时间，小于等于 0 时使用所在区域的默认过期时间
+     */
     <T> T get(String key, Callable<T> valueLoader, long ttlSeconds);
 
+    /**
+     * 非阻塞读取，调用线程不会等待 Redis 或数据源
+     * <p>
+     * 同一 key 的并发调用共享同一个加载中的 future。需要 DistributedLock 实现 tryLockAsync/unlockAsync，
+     * 否则本地缓存和 Redis 均未命中时返回的 future 以 UnsupportedOperationException 失败
+     *
+     * @param asyncLoader 异步加载数据源，仅在本地缓存和 Redis 均未命中且抢到锁时调用
+     */
+    <T> CompletableFuture<T> getAsync(String key, Supplier<CompletableFuture<T>> asyncLoader, long ttlSeconds);
+
+    /**
+     * 批量读取：本地缓存 -> 一次 MGET -> 一次批量加载数据源，回写 Redis 使用一次 pipeline
+     *
+     * @param bulkLoader 入参为仍未命中的 key，返回查到的值，查不到的 key 不必出现在结果中
+     * @return 命中的 key 与值，值为 null 的 key 不包含在内
+     */
+    <T> Map<String, T> getAll(Collection<String> keys, Function<Set<String>, Map<String, T>> bulkLoader,
+                              long ttlSeconds);
+
     void put(String key, Object value, long ttlSeconds);
 
+    /**
+     * 批量写入，每个 key 使用独立的随机 TTL
+     */
+    void putAll(Map<String, ?> values, long ttlSeconds);
+
     void evict(String key);
 
     void clear();
@@ -1,124 +1,1904 @@
 package com.muzhou.commons.cache.core.cache.impl;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Weigher;
 import com.muzhou.commons.cache.autoconfigure.properties.CacheProperties;
+import com.muzhou.commons.cache.core.bus.BatchPublisher;
+import com.muzhou.commons.cache.core.bus.KeyEventBatch;
+import com.muzhou.commons.cache.core.bus.MessageBus;
 import com.muzhou.commons.cache.core.cache.MultiLevelCacheManager;
+import com.muzhou.commons.cache.core.cache.support.AsyncRedisOperations;
+import com.muzhou.commons.cache.core.cache.support.CacheEnvelope;
+import com.muzhou.commons.cache.core.cache.support.CacheSnapshot;
+import com.muzhou.commons.cache.core.cache.support.EstimatedSizeWeigher;
+import com.muzhou.commons.cache.core.cache.support.LoadNotifier;
+import com.muzhou.commons.cache.core.cache.support.NullAwareExpiry;
+import com.muzhou.commons.cache.core.cache.support.RedisCircuitBreaker;
+import com.muzhou.commons.cache.core.cache.support.RedisKeyScanner;
+import com.muzhou.commons.cache.core.cache.support.RedisReadCoalescer;
+import com.muzhou.commons.cache.core.cache.support.RedisRefreshLoader;
+import com.muzhou.commons.cache.core.cache.support.SerializedSizeWeigher;
+import com.muzhou.commons.cache.core.cache.support.WriteStamps;
+import com.muzhou.commons.cache.core.hotkey.HotKeyListener;
 import com.muzhou.commons.cache.core.hotkey.HotKeyManager;
+import com.muzhou.commons.cache.core.codec.KryoValueCodec;
+import com.muzhou.commons.cache.core.codec.ValueCodec;
+import com.muzhou.commons.cache.core.loader.CacheLoaderRegistry;
 import com.muzhou.commons.cache.core.lock.DistributedLock;
+import com.muzhou.commons.cache.core.metrics.CacheMetrics;
+import com.muzhou.commons.cache.core.offheap.OffHeapStore;
+import com.muzhou.commons.cache.core.penetration.PenetrationGuard;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.util.NamedThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.util.unit.DataSize;
 
 import javax.cache.CacheException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
-public class DefaultMultiLevelCacheManager implements MultiLevelCacheManager, InitializingBean {
+@Slf4j
+public class DefaultMultiLevelCacheManager implements MultiLevelCacheManager, InitializingBean, DisposableBean {
+
+    private static final String INVALIDATION_TOPIC = "multilevel:cache:invalidate";
+    private static final String LOADED_TOPIC = "multilevel:cache:loaded";
+    private static final char OP_EVICT = '-';
+    private static final char OP_CLEAR = '*';
+    /**
+     * 预加载后通知其他节点从 Redis 读取新值放入本地缓存
+     */
+    private static final char OP_REFRESH = '+';
+    private static final String CLEAR_ALL = "*";
+
+    private static final String TIER_LOCAL = "l1";
+    private static final String TIER_HOT = "hot";
+    private static final String TIER_STALE = "stale";
+
+    /**
+     * 异步读取 Redis 出错的标记，熔断开启时据此降级为本地加载
+     */
+    private static final Object REDIS_FAILED = new Object();
+
+    /**
+     * 无消息总线时等待加载结果的轮询间隔
+     */
+    private static final long LOAD_POLL_INTERVAL_MILLIS = 20;
+
+    /**
+     * 加载和重建使用的锁前缀，同步、异步路径和后台重建共用同一把锁
+     */
+    private static final String LOCK_PREFIX = "lock:";
+
+    /**
+     * 其他节点正在等待加载结果的标记前缀，持锁者加载完成后删除标记成功才发布加载通知
+     */
+    private static final String WAITING_PREFIX = "lock-waiting:";
+
+    /**
+     * 只给没有 TTL 的 key 设置过期时间，已有 TTL（已恢复或已被重新写入）和不存在的 key 不受影响
+     */
+    private static final byte[] RESTORE_TTL_SCRIPT = ("if redis.call('pttl', KEYS[1]) == -1 then "
+            + "return redis.call('pexpire', KEYS[1], ARGV[1]) else return 0 end").getBytes(StandardCharsets.UTF_8);
 
     private final RedisTemplate<String, Object> redisTemplate;
     private final HotKeyManager hotKeyManager;
     private final CacheProperties cacheProperties;
     private final DistributedLock distributedLock;
+
+    /**
+     * Redis 键前缀，本地缓存、失效消息使用不带前缀的 key，访问 Redis 时统一加上前缀
+     */
+    private final String keyPrefix;
+
+    /**
+     * 所属缓存区域，默认区域为空
+     */
+    private String region;
+
+    private AsyncCache<Object, Object> asyncLocalCache;
     private Cache<Object, Object> localCache;
 
-    public DefaultMultiLevelCacheManager(
-            RedisTemplate<String, Object> redisTemplate,
-            HotKeyManager hotKeyManager,
-            CacheProperties cacheProperties,
-            DistributedLock distributedLock) {
-        this.redisTemplate = redisTemplate;
-        this.hotKeyManager = hotKeyManager;
-        this.cacheProperties = cacheProperties;
-        this.distributedLock = distributedLock;
+    /**
+     * 热点 key 专区，与普通本地缓存隔离，不会被冷 key 扫描挤出
+     */
+    private AsyncCache<Object, Object> asyncHotCache;
+    private Cache<Object, Object> hotCache;
+
+    /**
+     * 异步路径的回调、超时和非 Lettuce 连接下的 Redis 操作都在该线程池执行，不占用请求线程
+     */
+    private ScheduledExecutorService asyncExecutor;
+    private AsyncRedisOperations asyncRedisOperations;
+
+    /**
+     * Redis 读合并，未开启时为空
+     */
+    private RedisReadCoalescer readCoalescer;
+
+    /**
+     * 本地缓存提前刷新的线程池，未配置 refreshAfterWrite 时为空
+     */
+    private ThreadPoolExecutor refreshExecutor;
+
+    /**
+     * 逻辑过期和提前刷新的后台重建线程池，两者都未开启时为空
+     */
+    private ThreadPoolExecutor rebuildExecutor;
+
+    /**
+     * 正在重建的 key -> 抑制重复触发的截止时间（毫秒），避免过期期间每次读取都提交重建任务
+     */
+    private final ConcurrentHashMap<String, Long> rebuildingKeys = new ConcurrentHashMap<>();
+
+    /**
+     * 堆外缓存，作为本地缓存容量淘汰的接收方，未开启时为空
+     */
+    private OffHeapStore offHeapStore;
+    private ValueCodec offHeapCodec;
+    private WriteStamps writeStamps;
+
+    /**
+     * Redis 熔断器，未开启熔断时为空
+     */
+    private RedisCircuitBreaker circuitBreaker;
+    private boolean ownsCircuitBreaker;
+
+    /**
+     * 线程池、读合并等与区域无关的资源，未设置时自行创建
+     */
+    private SharedCacheResources sharedResources;
+    private boolean ownsSharedResources;
+
+    /**
+     * 熔断期间（或写入失败时）未能写入或删除的 Redis key，Redis 中可能仍是旧值，熔断器离开熔断状态后补删。
+     * 超过上限或跳过了 clear 时改为补做整个区域的清理。未开启熔断时为空
+     */
+    private Set<String> pendingDeletes;
+    private final AtomicBoolean pendingClear = new AtomicBoolean();
+    private Runnable recoveryListener;
+
+    /**
+     * 注册在热点 key 管理器上的监听器，管理器由多个区域共用，销毁时需要移除
+     */
+    private HotKeyListener hotKeyListener;
+
+    /**
+     * 近期被淘汰（容量、过期）的本地缓存条目，熔断期间本地缓存未命中时作为旧值返回，未开启熔断时为空
+     */
+    private Cache<Object, Object> staleCache;
+
+    /**
+     * 热点预加载使用的加载器和线程池，未设置加载器注册表时为空
+     */
+    private CacheLoaderRegistry loaderRegistry;
+    private ThreadPoolExecutor preloadExecutor;
+
+    private MessageBus messageBus;
+    private PenetrationGuard penetrationGuard;
+    private MeterRegistry meterRegistry;
+    private CacheMetrics metrics;
+    private LoadNotifier loadNotifier;
+    private BatchPublisher invalidationPublisher;
+    private ScheduledExecutorService invalidationScheduler;
+
+    public DefaultMultiLevelCacheManager(
+            RedisTemplate<String, Object> redisTemplate,
+            HotKeyManager hotKeyManager,
+            CacheProperties cacheProperties,
+            DistributedLock distributedLock) {
+        this.redisTemplate = redisTemplate;
+        this.hotKeyManager = hotKeyManager;
+        this.cacheProperties = cacheProperties;
+        this.distributedLock = distributedLock;
+        String prefix = cacheProperties.getRedis().getKeyPrefix();
+        this.keyPrefix = prefix != null ? prefix : "";
+    }
+
+    /**
+     * 设置所属缓存区域（可选）：不同区域的失效消息互不干扰，由 {@link MultiLevelCacheRegistry} 创建时设置
+     */
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    /**
+     * 开启跨节点本地缓存失效（可选）：put/evict/clear 会批量广播给其他节点，
+     * 其他节点收到后清除自己的本地缓存，下次读取时从 Redis 获取最新值
+     */
+    public void setMessageBus(MessageBus messageBus) {
+        this.messageBus = messageBus;
+    }
+
+    /**
+     * 开启缓存穿透防护（可选）：防护判定不存在的 key 不再查询 Redis 和数据源
+     */
+    public void setPenetrationGuard(PenetrationGuard penetrationGuard) {
+        this.penetrationGuard = penetrationGuard;
+    }
+
+    /**
+     * 开启指标（可选）：各层命中率、加载耗时、加载锁和淘汰原因发布到 Micrometer
+     */
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 使用共享的 Redis 熔断器（可选）：各区域访问同一个 Redis，由 {@link MultiLevelCacheRegistry} 统一设置。
+     * 未设置且开启熔断时自行创建
+     */
+    public void setCircuitBreaker(RedisCircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * 开启热点预加载（可选）：即将过期的热点 key 按登记的加载器从数据源重新加载，写回 Redis 并推送到所有节点
+     */
+    public void setLoaderRegistry(CacheLoaderRegistry loaderRegistry) {
+        this.loaderRegistry = loaderRegistry;
+    }
+
+    /**
+     * 使用共享的线程池和读合并（可选）：各区域共用一份，由 {@link MultiLevelCacheRegistry} 统一设置。
+     * 未设置时自行创建
+     */
+    public void setSharedResources(SharedCacheResources sharedResources) {
+        this.sharedResources = sharedResources;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        this.metrics = new CacheMetrics(meterRegistry, region);
+
+        CacheProperties.CircuitBreaker breaker = cacheProperties.getCircuitBreaker();
+        if (circuitBreaker == null && breaker.isEnabled()) {
+            this.circuitBreaker = new RedisCircuitBreaker(breaker, this::pingRedis);
+            this.ownsCircuitBreaker = true;
+        }
+        if (circuitBreaker != null) {
+            this.staleCache = Caffeine.newBuilder()
+                    .maximumSize(breaker.getStaleMaximumSize())
+                    .expireAfterWrite(breaker.getStaleTtl())
+                    .recordStats()
+                    .build();
+            metrics.bindCircuitBreaker(circuitBreaker);
+            metrics.bindLocalCache(TIER_STALE, staleCache);
+
+            this.pendingDeletes = ConcurrentHashMap.newKeySet();
+            this.recoveryListener = this::replayPendingDeletes;
+            circuitBreaker.addRecoveryListener(recoveryListener);
+        }
+
+        if (sharedResources == null) {
+            this.sharedResources = new SharedCacheResources(redisTemplate, cacheProperties, loaderRegistry != null);
+            this.ownsSharedResources = true;
+        }
+        this.asyncExecutor = sharedResources.getAsyncExecutor();
+        this.asyncRedisOperations = sharedResources.getAsyncRedisOperations();
+        this.readCoalescer = sharedResources.getReadCoalescer();
+        this.refreshExecutor = sharedResources.getRefreshExecutor();
+        this.rebuildExecutor = sharedResources.getRebuildExecutor();
+        this.preloadExecutor = loaderRegistry != null ? sharedResources.getPreloadExecutor() : null;
+
+        // 区域的堆外容量已由 CacheProperties#forRegion 从总容量中划分
+        CacheProperties.OffHeap offHeap = cacheProperties.getOffHeap();
+        if (offHeap.isEnabled()) {
+            this.offHeapStore = new OffHeapStore(offHeap.getCapacity().toBytes(), offHeap.getSegments());
+            this.offHeapCodec = new KryoValueCodec(cacheProperties.getCodec().getAllowedPackages());
+            this.writeStamps = new WriteStamps();
+        }
+
+        // 本地缓存以 AsyncCache 承载，同步接口使用其同步视图读写，两条路径共享同一份数据和加载中的 future。
+        // 同步视图的 get(key, mappingFunction) 会把加载交给 Caffeine 的 executor，同步加载改由 loadOnCaller 在调用线程执行
+        this.asyncLocalCache = buildLocalCache();
+        this.localCache = asyncLocalCache.synchronous();
+        this.asyncHotCache = buildHotCache();
+        this.hotCache = asyncHotCache.synchronous();
+        this.loadNotifier = new LoadNotifier(messageBus, loadedTopic());
+
+        metrics.bindLocalCache(TIER_LOCAL, localCache);
+        metrics.bindLocalCache(TIER_HOT, hotCache);
+        metrics.bindHotKeys(hotKeyManager);
+        if (offHeapStore != null) {
+            metrics.bindOffHeap(offHeapStore);
+        }
+        if (readCoalescer != null) {
+            metrics.bindCoalescer(readCoalescer);
+        }
+
+        // 热点专区随热点 key 的增删填充和清退
+        this.hotKeyListener = new HotKeyListener() {
+            @Override
+            public void onHotKeyAdded(String key) {
+                String localKey = localKey(key);
+                if (localKey != null) {
+                    promoteHotKey(localKey);
+                }
+            }
+
+            @Override
+            public void onHotKeyChanged(Set<String> addedKeys, Set<String> removedKeys) {
+                addedKeys.forEach(this::onHotKeyAdded);
+                for (String key : removedKeys) {
+                    String localKey = localKey(key);
+                    if (localKey != null) {
+                        demoteHotKey(localKey);
+                    }
+                }
+            }
+
+            @Override
+            public void onPreload(Set<String> hotKeys, long deadlineNanos) {
+                preloadHotKeys(hotKeys, deadlineNanos);
+            }
+        };
+        hotKeyManager.addListener(hotKeyListener);
+
+        if (messageBus != null) {
+            this.invalidationScheduler = Executors.newSingleThreadScheduledExecutor(
+                    new NamedThreadFactory("cache-invalidation-"));
+            this.invalidationPublisher = new BatchPublisher(messageBus,
+                    invalidationTopic(),
+                    cacheProperties.getLocal().getInvalidationInterval().toMillis(),
+                    cacheProperties.getLocal().getInvalidationBatchSize(),
+                    invalidationScheduler);
+            messageBus.subscribe(invalidationTopic(), this::onInvalidation);
+        }
+
+        if (cacheProperties.getSnapshot().isEnabled()) {
+            restoreSnapshot();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (hotKeyListener != null) {
+            hotKeyManager.removeListener(hotKeyListener);
+        }
+        if (cacheProperties.getSnapshot().isEnabled()) {
+            writeSnapshot();
+        }
+        if (invalidationPublisher != null) {
+            invalidationPublisher.flush();
+            invalidationScheduler.shutdownNow();
+        }
+        if (ownsSharedResources) {
+            sharedResources.close();
+        }
+        if (recoveryListener != null) {
+            circuitBreaker.removeRecoveryListener(recoveryListener);
+        }
+        if (ownsCircuitBreaker) {
+            circuitBreaker.close();
+        }
+    }
+
+    private String invalidationTopic() {
+        return region == null ? INVALIDATION_TOPIC : INVALIDATION_TOPIC + ":" + region;
+    }
+
+    private String loadedTopic() {
+        return region == null ? LOADED_TOPIC : LOADED_TOPIC + ":" + region;
+    }
+
+    /**
+     * 本地 key 对应的 Redis key，热点统计同样使用 Redis key，不同区域的同名 key 分开统计
+     */
+    private String redisKey(String key) {
+        return keyPrefix + key;
+    }
+
+    private List<String> redisKeys(Collection<String> keys) {
+        List<String> redisKeys = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            redisKeys.add(redisKey(key));
+        }
+        return redisKeys;
+    }
+
+    /**
+     * Redis key 对应的本地 key，不属于本区域时返回 null
+     */
+    private String localKey(String redisKey) {
+        return redisKey.startsWith(keyPrefix) ? redisKey.substring(keyPrefix.length()) : null;
+    }
+
+    private boolean isHotKey(String key) {
+        return hotKeyManager.isHotKey(redisKey(key));
+    }
+
+    /**
+     * Redis 是否可用，熔断期间只使用本地缓存
+     */
+    private boolean redisAvailable() {
+        return circuitBreaker == null || circuitBreaker.allowRequest();
+    }
+
+    /**
+     * 执行一次 Redis 调用并记录到熔断器，异常和慢调用计为失败
+     */
+    private <V> V redisCall(Supplier<V> call) {
+        if (circuitBreaker == null) {
+            return call.get();
+        }
+        long start = System.nanoTime();
+        try {
+            V value = call.get();
+            circuitBreaker.onSuccess(System.nanoTime() - start);
+            return value;
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure();
+            throw e;
+        }
+    }
+
+    /**
+     * {@link #redisCall} 的异步版本
+     */
+    private <V> CompletableFuture<V> redisCallAsync(Supplier<CompletableFuture<V>> call) {
+        if (circuitBreaker == null) {
+            return call.get();
+        }
+        long start = System.nanoTime();
+        return call.get().whenComplete((value, e) -> {
+            if (e == null) {
+                circuitBreaker.onSuccess(System.nanoTime() - start);
+            } else {
+                circuitBreaker.onFailure();
+            }
+        });
+    }
+
+    private void pingRedis() {
+        redisTemplate.execute((RedisCallback<String>) RedisConnection::ping);
+    }
+
+    /**
+     * 记录未能写入或删除的 Redis key，恢复后补删。未开启熔断时不记录
+     */
+    private void recordPendingDeletes(Collection<String> redisKeys) {
+        if (pendingDeletes == null || pendingClear.get()) {
+            return;
+        }
+        int maximumSize = cacheProperties.getCircuitBreaker().getPendingDeleteMaximumSize();
+        if (pendingDeletes.size() + redisKeys.size() <= maximumSize) {
+            pendingDeletes.addAll(redisKeys);
+            return;
+        }
+        // 没有前缀时无法清理整个区域，只能放弃记录
+        if (keyPrefix.isEmpty()) {
+            log.warn("[Cache] Too many pending deletes, drop keys: {}", redisKeys);
+            return;
+        }
+        if (pendingClear.compareAndSet(false, true)) {
+            log.warn("[Cache] Too many pending deletes, clear redis after recovery, region: {}", region);
+            pendingDeletes.clear();
+        }
+    }
+
+    /**
+     * 熔断器离开熔断状态后补删记录的 key，并通知其他节点丢弃本地缓存中的旧值；失败的批次留到下次恢复
+     */
+    private void replayPendingDeletes() {
+        if (pendingClear.compareAndSet(true, false)) {
+            try {
+                clearRedis();
+                publishInvalidation(CLEAR_ALL, OP_CLEAR);
+            } catch (Exception e) {
+                pendingClear.set(true);
+                log.warn("[Cache] Replay clear failed, region: {}, error: {}", region, e.getMessage());
+                return;
+            }
+        }
+        if (pendingDeletes.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(pendingDeletes);
+        int batchSize = Math.max(1, cacheProperties.getRedis().getScanCount());
+        int replayed = 0;
+        for (int from = 0; from < keys.size(); from += batchSize) {
+            List<String> batch = keys.subList(from, Math.min(from + batchSize, keys.size()));
+            pendingDeletes.removeAll(batch);
+            try {
+                redisCall(() -> redisTemplate.delete(batch));
+            } catch (Exception e) {
+                recordPendingDeletes(keys.subList(from, keys.size()));
+                log.warn("[Cache] Replay pending deletes failed, region: {}, remaining: {}, error: {}",
+                        region, keys.size() - from, e.getMessage());
+                break;
+            }
+            for (String redisKey : batch) {
+                publishInvalidation(localKey(redisKey), OP_EVICT);
+            }
+            replayed += batch.size();
+        }
+        log.info("[Cache] Replayed pending deletes, region: {}, count: {}", region, replayed);
+    }
+
+    /**
+     * Redis 读合并统计，未开启读合并时返回 null
+     */
+    public RedisReadCoalescer getReadCoalescer() {
+        return readCoalescer;
+    }
+
+    /**
+     * 保存热点 key 和两个本地缓存区域中最热的条目，条目保留剩余的过期时间
+     */
+    private void writeSnapshot() {
+        CacheProperties.Snapshot snapshot = cacheProperties.getSnapshot();
+        Path path = Paths.get(snapshot.getPath());
+        long now = System.currentTimeMillis();
+        ValueCodec codec = snapshotCodec();
+        List<CacheSnapshot.Entry> entries = new ArrayList<>();
+        collectHottest(hotCache, true, snapshot.getMaxEntries(), now, codec, entries);
+        collectHottest(localCache, false, snapshot.getMaxEntries(), now, codec, entries);
+        try {
+            CacheSnapshot.write(path, snapshot.getSchemaVersion(), hotKeyManager.getHotKeys(), entries);
+            log.info("[Cache] Snapshot written, entries: {}, path: {}", entries.size(), path);
+        } catch (IOException e) {
+            log.warn("[Cache] Write snapshot failed, path: {}, error: {}", path, e.getMessage());
+        }
+    }
+
+    private void collectHottest(Cache<Object, Object> cache, boolean hot, int limit, long now,
+                                ValueCodec codec, List<CacheSnapshot.Entry> entries) {
+        Optional<Policy.Eviction<Object, Object>> eviction = cache.policy().eviction();
+        Optional<Policy.VarExpiration<Object, Object>> expiration = cache.policy().expireVariably();
+        if (!eviction.isPresent() || !expiration.isPresent()) {
+            return;
+        }
+
+        for (Map.Entry<Object, Object> entry : eviction.get().hottest(limit).entrySet()) {
+            OptionalLong remaining = expiration.get().getExpiresAfter(entry.getKey(), TimeUnit.MILLISECONDS);
+            if (!remaining.isPresent() || remaining.getAsLong() <= 0) {
+                continue;
+            }
+            try {
+                entries.add(new CacheSnapshot.Entry((String) entry.getKey(), codec.encode(entry.getValue()),
+                        now + remaining.getAsLong(), hot));
+            } catch (Exception e) {
+                // 无法编码的值不写入快照
+            }
+        }
+    }
+
+    /**
+     * 启动时恢复快照：先恢复热点 key，再按剩余过期时间回填本地缓存，已过期和无法解码的条目跳过。
+     * 值结构版本与快照不一致时整体忽略
+     */
+    private void restoreSnapshot() {
+        CacheProperties.Snapshot snapshot = cacheProperties.getSnapshot();
+        Path path = Paths.get(snapshot.getPath());
+        ValueCodec codec = snapshotCodec();
+        int[] restored = {0};
+        try {
+            boolean loaded = CacheSnapshot.read(path, snapshot.getMaxAge().toMillis(), snapshot.getSchemaVersion(),
+                    hotKeyManager::loadHotKeys,
+                    entry -> {
+                        long remaining = entry.getExpireAt() - System.currentTimeMillis();
+                        if (remaining <= 0) {
+                            return;
+                        }
+                        Object value;
+                        try {
+                            value = codec.decode(entry.getValue());
+                        } catch (Exception e) {
+                            return;
+                        }
+                        Cache<Object, Object> cache = entry.isHot() ? hotCache : localCache;
+                        Optional<Policy.VarExpiration<Object, Object>> expiration = cache.policy().expireVariably();
+                        if (expiration.isPresent()) {
+                            // 指定过期时间的写入不经过 NullAwareExpiry，需要自行记录写入，淘汰时才会转存堆外。
+                            // 先记录再写入，写入时立即被淘汰也能找到记录
+                            if (writeStamps != null && !(value instanceof NullValue)) {
+                                writeStamps.record(entry.getKey(), value, TimeUnit.MILLISECONDS.toNanos(remaining));
+                            }
+                            expiration.get().put(entry.getKey(), value, remaining, TimeUnit.MILLISECONDS);
+                        } else {
+                            cache.put(entry.getKey(), value);
+                        }
+                        restored[0]++;
+                    });
+            if (loaded) {
+                log.info("[Cache] Snapshot restored, entries: {}, path: {}", restored[0], path);
+            }
+        } catch (Exception e) {
+            log.warn("[Cache] Restore snapshot failed, path: {}, error: {}", path, e.getMessage());
+        }
+    }
+
+    private ValueCodec snapshotCodec() {
+        return offHeapCodec != null
+                ? offHeapCodec
+                : new KryoValueCodec(cacheProperties.getCodec().getAllowedPackages());
+    }
+
+    /**
+     * 处理其他节点的失效消息，自身发出的消息直接忽略
+     */
+    private void onInvalidation(String message) {
+        KeyEventBatch batch = KeyEventBatch.decode(message);
+        if (messageBus.getNodeId().equals(batch.getNodeId())) {
+            return;
+        }
+
+        List<String> keys = new ArrayList<>(batch.getEvents().size());
+        List<String> refreshKeys = new ArrayList<>();
+        for (Map.Entry<String, Character> event : batch.getEvents().entrySet()) {
+            if (event.getValue() == OP_CLEAR) {
+                localCache.invalidateAll();
+                hotCache.invalidateAll();
+                clearOffHeap();
+                if (staleCache != null) {
+                    staleCache.invalidateAll();
+                }
+                return;
+            }
+            if (event.getValue() == OP_REFRESH) {
+                refreshKeys.add(event.getKey());
+            } else {
+                keys.add(event.getKey());
+            }
+        }
+        evictLocal(keys);
+        refreshLocal(refreshKeys);
+    }
+
+    /**
+     * 一次 MGET 从 Redis 读取其他节点预加载的新值放入本地缓存，Redis 中已不存在的 key 直接清除
+     */
+    private void refreshLocal(List<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        if (!redisAvailable()) {
+            evictLocal(keys);
+            return;
+        }
+        try {
+            List<Object> values = redisCall(() -> redisTemplate.opsForValue().multiGet(redisKeys(keys)));
+            for (int i = 0; i < keys.size(); i++) {
+                String key = keys.get(i);
+                Object value = values != null ? values.get(i) : null;
+                if (value == null) {
+                    evictLocal(Collections.singletonList(key));
+                    continue;
+                }
+                removeOffHeap(key);
+                localCacheFor(key).put(key, value);
+                removeStale(key);
+            }
+        } catch (Exception e) {
+            // 读取失败时退化为失效，下次读取走正常加载流程
+            evictLocal(keys);
+            log.warn("[Cache] Refresh local cache failed, keys: {}, error: {}", keys.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 热点预加载，集群内同一轮只有抢到预加载锁的节点执行：
+     * <ol>
+     *     <li>筛出本区域中登记了加载器的热点 key，一次 pipeline PTTL 找出剩余 TTL 低于 ahead 或已过期的</li>
+     *     <li>在预加载线程池中调用加载器，最多等待 timeout，超时和被拒绝的 key 留到下一轮</li>
+     *     <li>一次 pipeline 写回 Redis（使用区域默认 TTL），更新本地缓存并广播其他节点从 Redis 刷新</li>
+     * </ol>
+     * 预加载的值不记录计算耗时，这些 key 的提前刷新由预加载接管
+     */
+    private void preloadHotKeys(Set<String> hotKeys, long roundDeadline) {
+        if (loaderRegistry == null || loaderRegistry.isEmpty() || !redisAvailable()) {
+            return;
+        }
+
+        Map<String, Function<String, ?>> loaders = new LinkedHashMap<>();
+        for (String hotKey : hotKeys) {
+            String key = localKey(hotKey);
+            Function<String, ?> loader = key != null ? loaderRegistry.getLoader(key) : null;
+            if (loader != null) {
+                loaders.put(key, loader);
+            }
+        }
+        if (loaders.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<String> expiringKeys = findExpiringKeys(new ArrayList<>(loaders.keySet()));
+            if (expiringKeys.isEmpty()) {
+                return;
+            }
+
+            Map<String, Future<?>> futures = new LinkedHashMap<>(expiringKeys.size());
+            for (String key : expiringKeys) {
+                Function<String, ?> loader = loaders.get(key);
+                try {
+                    futures.put(key, preloadExecutor.submit(
+                            () -> callLoader(() -> loader.apply(key), System.nanoTime())));
+                } catch (RejectedExecutionException e) {
+                    // 队列已满，剩余的 key 留到下一轮
+                    break;
+                }
+            }
+
+            // 不超过本轮预加载的截止时间，否则预加载锁可能在本轮结束前过期
+            long deadline = Math.min(roundDeadline,
+                    System.nanoTime() + cacheProperties.getPreload().getTimeout().toNanos());
+            Map<String, Object> storeValues = new LinkedHashMap<>(futures.size());
+            for (Map.Entry<String, Future<?>> entry : futures.entrySet()) {
+                try {
+                    Object storeValue = toStoreValue(entry.getValue()
+                            .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+                    if (storeValue != null) {
+                        storeValues.put(entry.getKey(), storeValue);
+                    }
+                } catch (TimeoutException e) {
+                    entry.getValue().cancel(true);
+                } catch (ExecutionException e) {
+                    log.warn("[Cache] Preload key failed, key: {}, error: {}",
+                            entry.getKey(), e.getCause().getMessage());
+                }
+            }
+
+            putAllToRedis(storeValues, 0, 0).forEach((key, cachedValue) -> {
+                removeOffHeap(key);
+                localCacheFor(key).put(key, cachedValue);
+                removeStale(key);
+                publishInvalidation(key, OP_REFRESH);
+            });
+            log.info("[Cache] Preloaded hot keys, region: {}, expiring: {}, loaded: {}",
+                    region, expiringKeys.size(), storeValues.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("[Cache] Preload hot keys failed, region: {}, error: {}", region, e.getMessage());
+        }
+    }
+
+    /**
+     * 一次 pipeline PTTL，返回剩余 TTL 低于 ahead 或已不存在的 key。没有 TTL 的 key（逻辑过期）由后台重建负责，不在此处理
+     */
+    @SuppressWarnings("unchecked")
+    private List<String> findExpiringKeys(List<String> keys) {
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        List<Object> ttls = redisCall(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                connection.keyCommands().pTtl(keySerializer.serialize(redisKey(key)));
+            }
+            return null;
+        }));
+
+        long aheadMillis = cacheProperties.getPreload().getAhead().toMillis();
+        List<String> expiringKeys = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            Object ttl = ttls.get(i);
+            // -2：key 不存在，-1：没有 TTL
+            if (ttl instanceof Long && (Long) ttl != -1 && (Long) ttl < aheadMillis) {
+                expiringKeys.add(keys.get(i));
+            }
+        }
+        return expiringKeys;
+    }
+
+    /**
+     * 仅清除本节点的本地缓存
+     */
+    public void evictLocal(Collection<String> keys) {
+        localCache.invalidateAll(keys);
+        hotCache.invalidateAll(keys);
+        keys.forEach(this::removeOffHeap);
+        keys.forEach(this::removeStale);
+    }
+
+    private void publishInvalidation(String key, char operation) {
+        if (invalidationPublisher != null) {
+            invalidationPublisher.offer(key, operation);
+        }
+    }
+
+    private AsyncCache<Object, Object> buildLocalCache() {
+        CacheProperties.Local local = cacheProperties.getLocal();
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .expireAfter(new NullAwareExpiry(local.getExpireAfterWrite(),
+                        cacheProperties.getRedis().getNullValueTtl(), writeStamps))
+                .recordStats();
+        applyMaximum(builder, local.getMaximumWeight(), local.getMaximumSize());
+        applyRemovalListener(builder, TIER_LOCAL);
+
+        return buildRefreshable(builder);
+    }
+
+    private AsyncCache<Object, Object> buildHotCache() {
+        CacheProperties.Local local = cacheProperties.getLocal();
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .expireAfter(new NullAwareExpiry(local.getHotExpireAfterWrite(),
+                        cacheProperties.getRedis().getNullValueTtl(), writeStamps))
+                .recordStats();
+        applyMaximum(builder, local.getHotMaximumWeight(), local.getHotMaximumSize());
+        applyRemovalListener(builder, TIER_HOT);
+
+        return buildRefreshable(builder);
+    }
+
+    /**
+     * 配置了 maximumWeight 时按字节数限制大小，否则按条目数
+     */
+    @SuppressWarnings("unchecked")
+    private void applyMaximum(Caffeine<Object, Object> builder, DataSize maximumWeight, long maximumSize) {
+        if (maximumWeight == null) {
+            builder.maximumSize(maximumSize);
+            return;
+        }
+
+        boolean serialized = cacheProperties.getLocal().getWeigher() == CacheProperties.WeigherType.SERIALIZED;
+        Weigher<Object, Object> weigher = serialized
+                ? new SerializedSizeWeigher((RedisSerializer<Object>) redisTemplate.getValueSerializer())
+                : new EstimatedSizeWeigher();
+        builder.maximumWeight(maximumWeight.toBytes()).weigher(weigher);
+    }
+
+    /**
+     * 按原因统计淘汰次数；开启堆外缓存时，因容量被淘汰的条目序列化后转存到堆外，沿用写入本地缓存时的过期时间。
+     * 开启熔断时，其余被动淘汰的条目留在旧值缓冲区
+     * <p>
+     * 开启堆外缓存时监听器在淘汰线程上同步执行，并由 {@link WriteStamps} 保证已失效或已被替换的值不会转存
+     */
+    private void applyRemovalListener(Caffeine<Object, Object> builder, String tier) {
+        if (offHeapStore != null) {
+            builder.executor(Runnable::run);
+        }
+        builder.removalListener((Object key, Object value, RemovalCause cause) -> {
+            metrics.recordEviction(tier, cause);
+            boolean movedOffHeap = offHeapStore != null && cause == RemovalCause.SIZE;
+            if (staleCache != null && cause.wasEvicted() && value != null && !movedOffHeap) {
+                staleCache.put(key, value);
+            }
+            if (writeStamps == null) {
+                return;
+            }
+            if (!movedOffHeap || value == null || value instanceof NullValue) {
+                writeStamps.remove(key, value, null);
+                return;
+            }
+            writeStamps.remove(key, value, expireAt -> moveOffHeap((String) key, value, expireAt));
+        });
+    }
+
+    private void moveOffHeap(String key, Object value, long expireAt) {
+        if (value instanceof CacheEnvelope && !((CacheEnvelope) value).isLogical()) {
+            expireAt = Math.min(expireAt, ((CacheEnvelope) value).getExpireAt());
+        }
+        if (expireAt <= System.currentTimeMillis()) {
+            return;
+        }
+        try {
+            offHeapStore.put(key, offHeapCodec.encode(value), expireAt);
+        } catch (Exception e) {
+            log.warn("[Cache] Move evicted entry off-heap failed, key: {}, error: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * 本地缓存未命中时查堆外缓存。命中次数达到 promoteHits 后晋升回本地缓存，
+     * 未达到时直接返回，不占用本地缓存容量
+     */
+    private Object getFromOffHeap(String key, Cache<Object, Object> cache) {
+        OffHeapStore.Hit hit = offHeapStore.get(key);
+        if (hit == null) {
+            return null;
+        }
+        Object value;
+        try {
+            value = offHeapCodec.decode(hit.getValue());
+        } catch (Exception e) {
+            offHeapStore.remove(key);
+            return null;
+        }
+        if (hit.getHits() >= cacheProperties.getOffHeap().getPromoteHits()) {
+            cache.put(key, value);
+            offHeapStore.remove(key);
+        }
+        return value;
+    }
+
+    /**
+     * 失效 key 在堆外的副本，先清除写入记录，尚未完成的淘汰不会再把旧值转存进来。
+     * 写入新值时需要在放入本地缓存之前调用，否则会清除新值的写入记录
+     */
+    private void removeOffHeap(String key) {
+        if (offHeapStore != null) {
+            writeStamps.invalidate(key);
+            offHeapStore.remove(key);
+        }
+    }
+
+    private void clearOffHeap() {
+        if (offHeapStore != null) {
+            writeStamps.clear();
+            offHeapStore.clear();
+        }
+    }
+
+    private void removeStale(String key) {
+        if (staleCache != null) {
+            staleCache.invalidate(key);
+        }
+    }
+
+    /**
+     * 堆外缓存统计，未开启堆外缓存时返回 null
+     */
+    public OffHeapStore getOffHeapStore() {
+        return offHeapStore;
+    }
+
+    /**
+     * 配置了 refreshAfterWrite 时构建 AsyncLoadingCache：到期的缓存项继续返回旧值，
+     * 同时在 refreshExecutor 中从 Redis 刷新，Redis 中已过期时按登记的加载器从数据源重新加载，
+     * 读取方不会在过期时刻被阻塞
+     */
+    private AsyncCache<Object, Object> buildRefreshable(Caffeine<Object, Object> builder) {
+        if (refreshExecutor == null) {
+            return builder.buildAsync();
+        }
+        builder.refreshAfterWrite(cacheProperties.getLocal().getRefreshAfterWrite());
+        return builder.buildAsync(new RedisRefreshLoader(this::redisGet, this::reloadMissing,
+                refreshExecutor, this::redisAvailable));
+    }
+
+    /**
+     * 本地缓存刷新时 Redis 中已不存在：在刷新线程上按 {@link CacheLoaderRegistry} 登记的加载器重新加载，
+     * 与加载共用分布式锁，写回 Redis（区域默认 TTL）后返回新值
+     * <ul>
+     *     <li>没有登记加载器、数据源已删除（且不缓存空值）或加载失败时返回 null，本地缓存项随之移除</li>
+     *     <li>抢锁失败说明其他请求正在加载，保留旧值，下一个刷新周期从 Redis 读取加载结果</li>
+     * </ul>
+     */
+    private Object reloadMissing(String key, Object oldValue) {
+        Function<String, ?> loader = loaderRegistry != null ? loaderRegistry.getLoader(key) : null;
+        if (loader == null) {
+            return null;
+        }
+
+        String lockKey = LOCK_PREFIX + redisKey(key);
+        boolean locked = false;
+        try {
+            locked = distributedLock.tryLock(lockKey, 0,
+                    cacheProperties.getLock().getLeaseTime().toMillis(), TimeUnit.MILLISECONDS);
+            if (!locked) {
+                return oldValue;
+            }
+
+            // 双重检查
+            Object current = redisCall(() -> redisTemplate.opsForValue().get(redisKey(key)));
+            if (current != null) {
+                return current;
+            }
+
+            long loadStart = System.nanoTime();
+            Object storeValue = toStoreValue(callLoader(() -> loader.apply(key), loadStart));
+            long computeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStart);
+            if (storeValue == null) {
+                return null;
+            }
+            long ttl = storeValue instanceof NullValue
+                    ? cacheProperties.getRedis().getNullValueTtl().getSeconds()
+                    : getRandomTtl(0);
+            Object cachedValue = wrapForRedis(key, storeValue, ttl, computeMillis);
+            writeToRedis(key, cachedValue, ttl);
+            return cachedValue;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            log.warn("[Cache] Reload expired key on refresh failed, key: {}, error: {}", key, e.getMessage());
+            return null;
+        } finally {
+            if (locked) {
+                distributedLock.unlock(lockKey);
+                notifyLoaded(key);
+            }
+        }
+    }
+
+    @Override
+    public <T> T get(String key, Callable<T> valueLoader, long ttlSeconds) {
+        try {
+            // 记录热点key访问
+            hotKeyManager.recordAccess(redisKey(key));
+
+            // 1. 先查本地缓存（热点 key 查热点专区，加载中的值等待其完成），再查堆外缓存
+            AsyncCache<Object, Object> asyncCache = asyncLocalCacheFor(key);
+            CompletableFuture<Object> cached = asyncCache.getIfPresent(key);
+            Object value = cached != null ? cached.join() : null;
+            if (cached == null && offHeapStore != null) {
+                value = getFromOffHeap(key, localCacheFor(key));
+            }
+            if (cached == null && value == null) {
+                value = loadOnCaller(asyncCache, key, () -> loadFromRemote(key, valueLoader, ttlSeconds));
+            }
+
+            rebuildIfNeeded(key, value, valueLoader, ttlSeconds);
+            return (T) fromStoreValue(value);
+        } catch (Exception e) {
+            throw new CacheException("Get cache error", e);
+        }
+    }
+
+    /**
+     * 在调用线程上加载：先登记加载中的 future，同一 key 的并发调用（包括 getAsync）等待并复用它，
+     * 再在 Caffeine 的 compute 之外执行 loader。加载不进入 Caffeine 的 executor（默认为 commonPool），
+     * 不占用公共线程池，也保留调用方的 ThreadLocal（事务、MDC）
+     */
+    private Object loadOnCaller(AsyncCache<Object, Object> asyncCache, String key, Supplier<Object> loader) {
+        ConcurrentMap<Object, CompletableFuture<Object>> map = asyncCache.asMap();
+        CompletableFuture<Object> loading = new CompletableFuture<>();
+        CompletableFuture<Object> existing = map.putIfAbsent(key, loading);
+        if (existing != null) {
+            return existing.join();
+        }
+
+        Object value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException | Error e) {
+            map.remove(key, loading);
+            loading.completeExceptionally(e);
+            throw e;
+        }
+        loading.complete(value);
+        // 与 Caffeine 自身的加载完成处理一致：空值移除，否则按完成的值重新计算权重和过期时间
+        if (value == null) {
+            map.remove(key, loading);
+        } else {
+            map.replace(key, loading, loading);
+        }
+        return value;
+    }
+
+    /**
+     * 本地缓存未命中时的加载流程：Redis -> 分布式锁 -> valueLoader
+     *
+     * @return 缓存中存储的值，空值以 {@link NullValue#INSTANCE} 表示
+     */
+    private Object loadFromRemote(String key, Callable<?> valueLoader, long ttlSeconds) {
+        // 确定不存在的 key 直接返回，不再查 Redis 和数据库
+        if (penetrationGuard != null && !penetrationGuard.mightContain(key)) {
+            return null;
+        }
+
+        // Redis 熔断期间不访问 Redis 和分布式锁
+        if (!redisAvailable()) {
+            return loadLocally(key, valueLoader);
+        }
+
+        // 2. 本地没有则查Redis
+        Object redisValue;
+        try {
+            redisValue = redisGet(key);
+        } catch (RuntimeException e) {
+            if (circuitBreaker == null) {
+                throw e;
+            }
+            return loadLocally(key, valueLoader);
+        }
+        metrics.recordRedisGet(redisValue != null);
+        if (redisValue != null) {
+            return redisValue;
+        }
+
+        // 3. Redis也没有，加分布式锁查数据库
+        String lockKey = LOCK_PREFIX + redisKey(key);
+        CacheProperties.Lock lockProperties = cacheProperties.getLock();
+        try {
+            long lockStart = System.nanoTime();
+            boolean locked = distributedLock.tryLock(lockKey,
+                    lockProperties.getWaitTime().toMillis(),
+                    lockProperties.getLeaseTime().toMillis(),
+                    TimeUnit.MILLISECONDS);
+            metrics.recordLock(locked, System.nanoTime() - lockStart);
+            if (locked) {
+                try {
+                    // 双重检查
+                    redisValue = redisCall(() -> redisTemplate.opsForValue().get(redisKey(key)));
+                    if (redisValue != null) {
+                        return redisValue;
+                    }
+
+                    // 调用 valueLoader 获取数据（数据库查询）
+                    long loadStart = System.nanoTime();
+                    Object loadedValue = callLoader(valueLoader, loadStart);
+                    long computeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStart);
+
+                    if (loadedValue != null) {
+                        // 设置随机 TTL 防止缓存雪崩
+                        long randomTtl = getRandomTtl(ttlSeconds);
+                        Object cachedValue = wrapForRedis(key, loadedValue, randomTtl, computeMillis);
+                        writeToRedis(key, cachedValue, randomTtl);
+
+                        // 如果是热点key，加入热点key管理
+                        if (isHotKey(key)) {
+                            hotKeyManager.addHotKey(redisKey(key), randomTtl);
+                        }
+                        return cachedValue;
+                    }
+
+                    // 数据源也没有，缓存空值占位符，避免重复穿透
+                    if (cacheProperties.getRedis().isCacheNullValues()) {
+                        writeToRedis(key, NullValue.INSTANCE, cacheProperties.getRedis().getNullValueTtl().getSeconds());
+                        return NullValue.INSTANCE;
+                    }
+                    return null;
+                } finally {
+                    distributedLock.unlock(lockKey);
+                    // 唤醒等待该 key 的请求，加载失败时它们读到空值后自行处理
+                    notifyLoaded(key);
+                }
+            } else {
+                // 获取锁失败，等待持锁者加载完成的通知
+                Object loadedValue = awaitLoaded(key);
+                metrics.recordLockFallback(loadedValue != null);
+                return loadedValue;
+            }
+        } catch (Exception e) {
+            throw new CacheException("Get cache error", e);
+        }
+    }
+
+    /**
+     * Redis 不可用时的加载：先返回近期被淘汰的旧值，没有旧值再直接调用数据源，结果只进入本地缓存。
+     * 调用方处于本地缓存的原子加载中，同一 key 在本节点同一时刻只会加载一次
+     */
+    private Object loadLocally(String key, Callable<?> valueLoader) {
+        Object staleValue = staleCache.getIfPresent(key);
+        if (staleValue != null) {
+            return staleValue;
+        }
+        try {
+            return toStoreValue(callLoader(valueLoader, System.nanoTime()));
+        } catch (Exception e) {
+            throw new CacheException("Get cache error", e);
+        }
+    }
+
+    /**
+     * 加载完成后唤醒等待者：本节点的直接唤醒；其他节点留下了等待标记时才通过消息总线通知，
+     * 没有竞争的加载只多一次 DEL，不发布消息。Redis 调用计入熔断器，熔断期间跳过，其他节点等待超时后自行读取
+     */
+    private void notifyLoaded(String key) {
+        String redisKey = redisKey(key);
+        loadNotifier.notifyLoaded(redisKey);
+        if (!loadNotifier.isClusterAware() || !redisAvailable()) {
+            return;
+        }
+        try {
+            Boolean waiting = redisCall(() -> redisTemplate.delete(WAITING_PREFIX + redisKey));
+            if (Boolean.TRUE.equals(waiting)) {
+                redisCall(() -> {
+                    loadNotifier.publishLoaded(redisKey);
+                    return null;
+                });
+            }
+        } catch (Exception e) {
+            log.warn("[Cache] Publish load notification failed, key: {}, error: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * 抢锁失败后留下等待标记，最长保留 loadWaitTimeout。需要在登记后读取 Redis 之前设置：
+     * 持锁者先写入 Redis 再删除标记，删除时看不到标记的等待者一定能读到写入的值
+     */
+    private void markWaiting(String key) {
+        if (!loadNotifier.isClusterAware() || !redisAvailable()) {
+            return;
+        }
+        try {
+            redisCall(() -> {
+                redisTemplate.opsForValue().set(WAITING_PREFIX + redisKey(key), "1",
+                        cacheProperties.getLock().getLoadWaitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+                return null;
+            });
+        } catch (Exception e) {
+            // 没有标记时等待到超时后自行读取
+        }
+    }
+
+    /**
+     * {@link #markWaiting} 的异步版本，标记过期时间向上取整到秒
+     */
+    private CompletableFuture<Void> markWaitingAsync(String key) {
+        if (!loadNotifier.isClusterAware() || !redisAvailable()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long ttlSeconds = Math.max(1, (cacheProperties.getLock().getLoadWaitTimeout().toMillis() + 999) / 1000);
+        try {
+            return redisCallAsync(() -> asyncRedisOperations.set(WAITING_PREFIX + redisKey(key), "1", ttlSeconds))
+                    .exceptionally(e -> null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * 等待其他请求加载完成后读取 Redis，最多等待 loadWaitTimeout
+     * <p>
+     * 没有消息总线时收不到其他节点的通知，按短间隔轮询 Redis 兜底
+     */
+    private Object awaitLoaded(String key) throws InterruptedException, ExecutionException {
+        long deadline = System.nanoTime() + cacheProperties.getLock().getLoadWaitTimeout().toNanos();
+        long pollNanos = TimeUnit.MILLISECONDS.toNanos(LOAD_POLL_INTERVAL_MILLIS);
+        markWaiting(key);
+
+        while (true) {
+            LoadNotifier.Waiter waiter = loadNotifier.await(redisKey(key));
+            try {
+                // 登记后再查一次，避免错过登记前已经发出的通知
+                Object value = redisGet(key);
+                if (value != null) {
+                    return value;
+                }
+
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return null;
+                }
+                waiter.getSignal().get(loadNotifier.isClusterAware() ? remaining : Math.min(remaining, pollNanos),
+                        TimeUnit.NANOSECONDS);
+                return redisGet(key);
+            } catch (TimeoutException e) {
+                // 超时后回到循环开头再查一次 Redis
+            } finally {
+                loadNotifier.release(waiter);
+            }
+        }
     }
 
     @Override
-    public void afterPropertiesSet() {
-        this.localCache = buildLocalCache();
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> getAsync(String key, Supplier<CompletableFuture<T>> asyncLoader, long ttlSeconds) {
+        try {
+            hotKeyManager.recordAccess(redisKey(key));
+
+            // 本地缓存未命中时登记加载中的 future，同一 key 的并发调用直接复用
+            return asyncLocalCacheFor(key)
+                    .get(key, (k, executor) -> loadFromRemoteAsync(key, asyncLoader, ttlSeconds))
+                    .thenApply(value -> {
+                        // 重建在重建线程池执行，可以等待异步加载的结果
+                        rebuildIfNeeded(key, value, () -> asyncLoader.get().join(), ttlSeconds);
+                        return (T) fromStoreValue(value);
+                    });
+        } catch (Exception e) {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new CacheException("Get cache error", e));
+            return failed;
+        }
     }
 
-    private Cache<Object, Object> buildLocalCache() {
-        Caffeine<Object, Object> builder = Caffeine.newBuilder()
-                .expireAfterWrite(cacheProperties.getLocal().getExpireAfterWrite())
-                .maximumSize(cacheProperties.getLocal().getMaximumSize())
-                .recordStats();
+    /**
+     * {@link #loadFromRemote} 的异步版本：Redis -> 异步锁 -> asyncLoader
+     * <p>
+     * Redis 命令走 Lettuce 异步接口，后续可能阻塞的步骤（发布通知、热点登记）切换到 asyncExecutor，
+     * 不在 Lettuce 的 IO 线程上执行
+     */
+    private CompletableFuture<Object> loadFromRemoteAsync(String key,
+                                                          Supplier<? extends CompletableFuture<?>> asyncLoader,
+                                                          long ttlSeconds) {
+        if (penetrationGuard != null && !penetrationGuard.mightContain(key)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        if (!redisAvailable()) {
+            return loadLocallyAsync(key, asyncLoader);
+        }
 
-        if (cacheProperties.getLocal().getRefreshAfterWrite() != null) {
-            builder.refreshAfterWrite(cacheProperties.getLocal().getRefreshAfterWrite());
+        CacheProperties.Lock lockProperties = cacheProperties.getLock();
+        CompletableFuture<Object> redisRead = redisCallAsync(() -> asyncRedisOperations.get(redisKey(key)));
+        if (circuitBreaker != null) {
+            redisRead = redisRead.exceptionally(e -> REDIS_FAILED);
         }
+        return redisRead.thenComposeAsync(redisValue -> {
+            if (redisValue == REDIS_FAILED) {
+                return loadLocallyAsync(key, asyncLoader);
+            }
+            metrics.recordRedisGet(redisValue != null);
+            if (redisValue != null) {
+                return CompletableFuture.completedFuture(redisValue);
+            }
 
-        return builder.build();
+            // 回调链会切换线程，锁的持有者以随机的负数标识，不会与任何线程 id 重复
+            String lockKey = LOCK_PREFIX + redisKey(key);
+            long ownerId = ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE;
+            long lockStart = System.nanoTime();
+            return distributedLock.tryLockAsync(lockKey, ownerId,
+                            lockProperties.getLeaseTime().toMillis(), TimeUnit.MILLISECONDS)
+                    .thenComposeAsync(locked -> {
+                        metrics.recordLock(locked, System.nanoTime() - lockStart);
+                        if (locked) {
+                            return loadWithLockAsync(key, lockKey, ownerId, asyncLoader, ttlSeconds);
+                        }
+                        long deadline = System.nanoTime() + lockProperties.getLoadWaitTimeout().toNanos();
+                        return markWaitingAsync(key)
+                                .thenComposeAsync(marked -> awaitLoadedAsync(key, deadline), asyncExecutor)
+                                .whenComplete((value, e) -> metrics.recordLockFallback(value != null));
+                    }, asyncExecutor);
+        }, asyncExecutor);
     }
 
-    @Override
-    public <T> T get(String key, Callable<T> valueLoader, long ttlSeconds) {
-        try {
-            // 记录热点key访问
-            hotKeyManager.recordAccess(key);
+    /**
+     * {@link #loadLocally} 的异步版本
+     */
+    private CompletableFuture<Object> loadLocallyAsync(String key,
+                                                       Supplier<? extends CompletableFuture<?>> asyncLoader) {
+        Object staleValue = staleCache.getIfPresent(key);
+        if (staleValue != null) {
+            return CompletableFuture.completedFuture(staleValue);
+        }
+        long loadStart = System.nanoTime();
+        return asyncLoader.get()
+                .whenComplete((value, e) -> metrics.recordLoad(System.nanoTime() - loadStart, e == null))
+                .thenApply(this::toStoreValue);
+    }
+
+    /**
+     * 持锁后的异步加载，无论成功与否都释放锁并唤醒等待者
+     */
+    private CompletableFuture<Object> loadWithLockAsync(String key, String lockKey, long ownerId,
+                                                        Supplier<? extends CompletableFuture<?>> asyncLoader,
+                                                        long ttlSeconds) {
+        CompletableFuture<Object> current = redisCallAsync(() -> asyncRedisOperations.get(redisKey(key)));
+        CompletableFuture<Object> loaded = current.thenComposeAsync(redisValue -> {
+            // 双重检查
+            if (redisValue != null) {
+                return CompletableFuture.completedFuture(redisValue);
+            }
 
-            // 1. 先查本地缓存
-            T value = (T) localCache.get(key, k -> {
-                // 2. 本地没有则查Redis
-                T redisValue = (T) redisTemplate.opsForValue().get(key);
-                if (redisValue != null) {
-                    return redisValue;
+            long loadStart = System.nanoTime();
+            CompletableFuture<?> loading = asyncLoader.get()
+                    .whenComplete((value, e) -> metrics.recordLoad(System.nanoTime() - loadStart, e == null));
+            return loading.thenComposeAsync(loadedValue -> {
+                long computeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStart);
+                Object storeValue = toStoreValue(loadedValue);
+                if (storeValue == null) {
+                    return CompletableFuture.completedFuture(null);
                 }
 
-                // 3. Redis也没有，加分布式锁查数据库
-                String lockKey = "lock:" + key;
-                try {
-                    if (distributedLock.tryLock(lockKey, 100, 3000, TimeUnit.MILLISECONDS)) {
-                        try {
-                            // 双重检查
-                            redisValue = (T) redisTemplate.opsForValue().get(key);
-                            if (redisValue != null) {
-                                return redisValue;
-                            }
+                // 与同步加载一致：按需包装（逻辑过期、提前刷新），空值使用空值 TTL
+                boolean nullValue = storeValue instanceof NullValue;
+                long ttl = nullValue
+                        ? cacheProperties.getRedis().getNullValueTtl().getSeconds()
+                        : getRandomTtl(ttlSeconds);
+                Object cachedValue = wrapForRedis(key, storeValue, ttl, computeMillis);
+                return writeToRedisAsync(key, cachedValue, ttl).thenApplyAsync(ok -> {
+                    if (!nullValue && isHotKey(key)) {
+                        hotKeyManager.addHotKey(redisKey(key), ttl);
+                    }
+                    return cachedValue;
+                }, asyncExecutor);
+            }, asyncExecutor);
+        }, asyncExecutor);
 
-                            // 调用 valueLoader 获取数据（数据库查询）
-                            T loadedValue = valueLoader.call();
+        return loaded.whenComplete((value, e) -> distributedLock.unlockAsync(lockKey, ownerId)
+                .whenCompleteAsync((ok, unlockError) -> notifyLoaded(key), asyncExecutor));
+    }
 
-                            if (loadedValue != null) {
-                                // 设置随机 TTL 防止缓存雪崩
-                                long randomTtl = getRandomTtl(ttlSeconds);
-                                putToRedis(key, loadedValue, randomTtl);
+    /**
+     * {@link #awaitLoaded} 的异步版本：等待通知或超时由定时任务完成，不占用任何线程
+     */
+    private CompletableFuture<Object> awaitLoadedAsync(String key, long deadline) {
+        LoadNotifier.Waiter waiter = loadNotifier.await(redisKey(key));
+        CompletableFuture<Object> result = asyncRedisOperations.get(redisKey(key)).thenComposeAsync(value -> {
+            // 登记后再查一次，避免错过登记前已经发出的通知
+            if (value != null) {
+                return CompletableFuture.completedFuture(value);
+            }
 
-                                // 如果是热点key，加入热点key管理
-                                if (hotKeyManager.isHotKey(key)) {
-                                    hotKeyManager.addHotKey(key, randomTtl);
-                                }
-                            }
-                            return loadedValue;
-                        } finally {
-                            distributedLock.unlock(lockKey);
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return CompletableFuture.completedFuture(null);
+            }
+            long pollNanos = TimeUnit.MILLISECONDS.toNanos(LOAD_POLL_INTERVAL_MILLIS);
+            long waitNanos = loadNotifier.isClusterAware() ? remaining : Math.min(remaining, pollNanos);
+            return signalWithin(waiter.getSignal(), waitNanos).thenComposeAsync(signalled -> {
+                // 重新等待前先释放本次登记，下一轮重新登记
+                loadNotifier.release(waiter);
+                return signalled ? asyncRedisOperations.get(redisKey(key)) : awaitLoadedAsync(key, deadline);
+            }, asyncExecutor);
+        }, asyncExecutor);
+        return result.whenComplete((value, e) -> loadNotifier.release(waiter));
+    }
+
+    /**
+     * signal 在 timeoutNanos 内完成时返回 true，否则返回 false
+     */
+    private CompletableFuture<Boolean> signalWithin(CompletableFuture<Void> signal, long timeoutNanos) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        ScheduledFuture<?> timeout = asyncExecutor.schedule(() -> result.complete(false),
+                timeoutNanos, TimeUnit.NANOSECONDS);
+        signal.whenComplete((v, e) -> {
+            timeout.cancel(false);
+            result.complete(true);
+        });
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Map<String, T> getAll(Collection<String> keys, Function<Set<String>, Map<String, T>> bulkLoader,
+                                     long ttlSeconds) {
+        try {
+            Map<String, Object> found = new HashMap<>(keys.size());
+            List<String> remoteKeys = new ArrayList<>();
+
+            // 1. 先查本地缓存，确定不存在的 key 直接跳过
+            for (String key : new LinkedHashSet<>(keys)) {
+                hotKeyManager.recordAccess(redisKey(key));
+                Object value = localCacheFor(key).getIfPresent(key);
+                if (value == null && offHeapStore != null) {
+                    value = getFromOffHeap(key, localCacheFor(key));
+                }
+                if (value != null) {
+                    found.put(key, value);
+                } else if (penetrationGuard == null || penetrationGuard.mightContain(key)) {
+                    remoteKeys.add(key);
+                }
+            }
+
+            // 2. 剩余的 key 一次 MGET，Redis 不可用时改查旧值缓冲区
+            Set<String> missingKeys = new LinkedHashSet<>();
+            if (!remoteKeys.isEmpty()) {
+                boolean redisRead = redisAvailable();
+                List<Object> redisValues = null;
+                if (redisRead) {
+                    try {
+                        redisValues = redisCall(() -> redisTemplate.opsForValue().multiGet(redisKeys(remoteKeys)));
+                    } catch (RuntimeException e) {
+                        if (circuitBreaker == null) {
+                            throw e;
                         }
+                        redisRead = false;
+                    }
+                }
+                int hits = 0;
+                for (int i = 0; i < remoteKeys.size(); i++) {
+                    String key = remoteKeys.get(i);
+                    Object value = redisValues != null ? redisValues.get(i) : null;
+                    if (value == null && !redisRead) {
+                        value = staleCache.getIfPresent(key);
+                    }
+                    if (value != null) {
+                        found.put(key, value);
+                        localCacheFor(key).put(key, value);
+                        hits++;
                     } else {
-                        // 获取锁失败，短暂等待后重试或返回旧数据
-                        Thread.sleep(100);
-                        return redisTemplate.opsForValue().get(key);
+                        missingKeys.add(key);
                     }
-                } catch (Exception e) {
-                    throw new CacheException("Get cache error", e);
                 }
-            });
+                if (redisRead) {
+                    metrics.recordRedisGets(hits, remoteKeys.size() - hits);
+                }
+            }
 
-            return value;
+            // 3. Redis 也没有的 key 一次批量加载数据源，一次 pipeline 回写（Redis 不可用时只写本地缓存）
+            // 批量加载不逐个加锁，一次批量查询的代价低于逐 key 抢锁
+            if (!missingKeys.isEmpty()) {
+                long loadStart = System.nanoTime();
+                Map<String, T> loaded = callLoader(
+                        () -> bulkLoader.apply(Collections.unmodifiableSet(missingKeys)), loadStart);
+                long computeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStart);
+                Map<String, Object> storeValues = new LinkedHashMap<>(missingKeys.size());
+                for (String key : missingKeys) {
+                    Object storeValue = toStoreValue(loaded != null ? loaded.get(key) : null);
+                    if (storeValue != null) {
+                        storeValues.put(key, storeValue);
+                    }
+                }
+                putAllToRedis(storeValues, ttlSeconds, computeMillis).forEach((key, cachedValue) -> {
+                    found.put(key, cachedValue);
+                    localCacheFor(key).put(key, cachedValue);
+                });
+            }
+
+            Map<String, T> result = new LinkedHashMap<>(found.size());
+            for (String key : keys) {
+                Object storeValue = found.get(key);
+                // 重建单个 key 时以只含该 key 的集合调用批量加载
+                rebuildIfNeeded(key, storeValue, () -> {
+                    Map<String, T> loaded = bulkLoader.apply(Collections.singleton(key));
+                    return loaded != null ? loaded.get(key) : null;
+                }, ttlSeconds);
+                Object value = fromStoreValue(storeValue);
+                if (value != null) {
+                    result.put(key, (T) value);
+                }
+            }
+            return result;
         } catch (Exception e) {
             throw new CacheException("Get cache error", e);
         }
     }
 
-    private void putToRedis(String key, Object value, long ttlSeconds) {
+    /**
+     * 调用数据源并记录加载耗时，失败同样计入
+     */
+    private <V> V callLoader(Callable<V> loader, long startNanos) throws Exception {
+        try {
+            V value = loader.call();
+            metrics.recordLoad(System.nanoTime() - startNanos, true);
+            return value;
+        } catch (Exception e) {
+            metrics.recordLoad(System.nanoTime() - startNanos, false);
+            throw e;
+        }
+    }
+
+    /**
+     * 读取 Redis，开启读合并时与其他线程的并发读取合并为一次 MGET
+     */
+    private Object redisGet(String key) {
+        String redisKey = redisKey(key);
+        return redisCall(() -> readCoalescer != null
+                ? readCoalescer.get(redisKey)
+                : redisTemplate.opsForValue().get(redisKey));
+    }
+
+    /**
+     * 逻辑过期的值已过期，或开启提前刷新且本次读取按概率命中时需要重建
+     */
+    private boolean shouldRebuild(CacheEnvelope envelope) {
+        long now = System.currentTimeMillis();
+        if (envelope.isLogical() && envelope.isExpired(now)) {
+            return true;
+        }
+        CacheProperties.EarlyRefresh earlyRefresh = cacheProperties.getEarlyRefresh();
+        return earlyRefresh.isEnabled() && envelope.shouldRefreshEarly(now, earlyRefresh.getBeta());
+    }
+
+    /**
+     * 逻辑过期或命中提前刷新：调用方先拿到当前值，后台重建
+     */
+    private void rebuildIfNeeded(String key, Object value, Callable<?> valueLoader, long ttlSeconds) {
+        if (value instanceof CacheEnvelope && shouldRebuild((CacheEnvelope) value)) {
+            triggerRebuild(key, valueLoader, ttlSeconds, ((CacheEnvelope) value).getExpireAt());
+        }
+    }
+
+    /**
+     * 提交后台重建，同一 key 在重建期间只提交一次
+     *
+     * @param observedExpireAt 读取方看到的过期时间，用于判断其他节点是否已经重建
+     */
+    private void triggerRebuild(String key, Callable<?> valueLoader, long ttlSeconds, long observedExpireAt) {
+        // 重建依赖分布式锁和 Redis，熔断期间继续返回旧值
+        if (rebuildExecutor == null || !redisAvailable()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long suppressUntil = now + cacheProperties.getLock().getLeaseTime().toMillis();
+        boolean[] claimed = {false};
+        rebuildingKeys.compute(key, (k, until) -> {
+            if (until != null && until > now) {
+                return until;
+            }
+            claimed[0] = true;
+            return suppressUntil;
+        });
+        if (!claimed[0]) {
+            return;
+        }
+
+        try {
+            rebuildExecutor.execute(() -> rebuild(key, valueLoader, ttlSeconds, observedExpireAt));
+        } catch (RejectedExecutionException e) {
+            rebuildingKeys.remove(key);
+        }
+    }
+
+    /**
+     * 后台重建：与加载共用同一把分布式锁，集群内同一时刻只有一个节点重建，
+     * 抢锁失败的节点在抑制期内不再重试，继续返回旧值直到收到失效通知
+     */
+    private void rebuild(String key, Callable<?> valueLoader, long ttlSeconds, long observedExpireAt) {
+        String lockKey = LOCK_PREFIX + redisKey(key);
+        boolean locked = false;
+        try {
+            locked = distributedLock.tryLock(lockKey, 0,
+                    cacheProperties.getLock().getLeaseTime().toMillis(), TimeUnit.MILLISECONDS);
+            if (!locked) {
+                return;
+            }
+
+            // 双重检查：过期时间已变化说明其他节点刚完成重建
+            Object current = redisCall(() -> redisTemplate.opsForValue().get(redisKey(key)));
+            if (current instanceof CacheEnvelope && ((CacheEnvelope) current).getExpireAt() != observedExpireAt) {
+                localCacheFor(key).put(key, current);
+                return;
+            }
+
+            long loadStart = System.nanoTime();
+            Object storeValue = toStoreValue(callLoader(valueLoader, loadStart));
+            long computeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStart);
+            if (storeValue == null) {
+                // 数据源已删除且不缓存空值
+                deleteFromRedis(Collections.singletonList(redisKey(key)));
+                localCacheFor(key).invalidate(key);
+                removeOffHeap(key);
+            } else {
+                long ttl = storeValue instanceof NullValue
+                        ? cacheProperties.getRedis().getNullValueTtl().getSeconds()
+                        : getRandomTtl(ttlSeconds);
+                Object cachedValue = wrapForRedis(key, storeValue, ttl, computeMillis);
+                writeToRedis(key, cachedValue, ttl);
+                removeOffHeap(key);
+                localCacheFor(key).put(key, cachedValue);
+            }
+            publishInvalidation(key, OP_EVICT);
+        } catch (Exception e) {
+            log.warn("[Cache] Rebuild key in background failed, key: {}, error: {}", key, e.getMessage());
+        } finally {
+            if (locked) {
+                distributedLock.unlock(lockKey);
+                rebuildingKeys.remove(key);
+            }
+        }
+    }
+
+    /**
+     * 按需将值包装为 {@link CacheEnvelope}，过期时间和计算耗时随值保存：
+     * 开启逻辑过期时包装热点 key，开启提前刷新时包装所有 key
+     *
+     * @param computeMillis 计算该值的耗时，未知时为 0（不会提前刷新）
+     */
+    private Object wrapForRedis(String key, Object storeValue, long ttlSeconds, long computeMillis) {
+        if (rebuildExecutor == null || storeValue instanceof NullValue) {
+            return storeValue;
+        }
+        boolean logical = cacheProperties.getLogicalExpire().isEnabled() && isHotKey(key);
+        if (!logical && !cacheProperties.getEarlyRefresh().isEnabled()) {
+            return storeValue;
+        }
+        long expireAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttlSeconds);
+        return new CacheEnvelope(storeValue, expireAt, computeMillis, logical);
+    }
+
+    private boolean isLogical(Object cachedValue) {
+        return cachedValue instanceof CacheEnvelope && ((CacheEnvelope) cachedValue).isLogical();
+    }
+
+    /**
+     * 写入 Redis 的 TTL（秒），逻辑过期的值不设置 TTL，返回 0
+     */
+    private long redisTtl(Object cachedValue, long ttlSeconds) {
+        return isLogical(cachedValue) ? 0 : ttlSeconds;
+    }
+
+    /**
+     * 写入 Redis，逻辑过期的值不设置 TTL。Redis 不可用或写入失败时不抛出，记录下来恢复后补删
+     */
+    private void writeToRedis(String key, Object cachedValue, long ttlSeconds) {
+        if (!redisAvailable()) {
+            recordPendingDeletes(Collections.singletonList(redisKey(key)));
+            return;
+        }
+        long ttl = redisTtl(cachedValue, ttlSeconds);
+        try {
+            redisCall(() -> {
+                if (ttl > 0) {
+                    redisTemplate.opsForValue().set(redisKey(key), cachedValue, ttl, TimeUnit.SECONDS);
+                } else {
+                    redisTemplate.opsForValue().set(redisKey(key), cachedValue);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            // Redis 中可能仍是旧值，恢复后补删
+            recordPendingDeletes(Collections.singletonList(redisKey(key)));
+        }
+    }
+
+    /**
+     * {@link #writeToRedis} 的异步版本，返回的 future 不会异常完成
+     */
+    private CompletableFuture<Void> writeToRedisAsync(String key, Object cachedValue, long ttlSeconds) {
+        if (!redisAvailable()) {
+            recordPendingDeletes(Collections.singletonList(redisKey(key)));
+            return CompletableFuture.completedFuture(null);
+        }
+        long ttl = redisTtl(cachedValue, ttlSeconds);
+        CompletableFuture<Void> write;
+        try {
+            write = redisCallAsync(() -> asyncRedisOperations.set(redisKey(key), cachedValue, ttl));
+        } catch (RuntimeException e) {
+            // 序列化失败在调用线程同步抛出
+            write = new CompletableFuture<>();
+            write.completeExceptionally(e);
+        }
+        return write.handle((ok, e) -> {
+            if (e != null) {
+                // Redis 中可能仍是旧值，恢复后补删
+                recordPendingDeletes(Collections.singletonList(redisKey(key)));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 转换为缓存中存储的值，允许缓存空值时 null 以占位符存储
+     */
+    private Object toStoreValue(Object value) {
+        if (value == null && cacheProperties.getRedis().isCacheNullValues()) {
+            return NullValue.INSTANCE;
+        }
+        return value;
+    }
+
+    /**
+     * 还原缓存中存储的值，逻辑过期包装取出原值，占位符还原为 null
+     */
+    private Object fromStoreValue(Object storeValue) {
+        if (storeValue instanceof CacheEnvelope) {
+            storeValue = ((CacheEnvelope) storeValue).getValue();
+        }
+        return storeValue instanceof NullValue ? null : storeValue;
+    }
+
+    /**
+     * 热点 key 使用独立的热点专区，其余 key 使用普通本地缓存
+     */
+    private Cache<Object, Object> localCacheFor(String key) {
+        return isHotKey(key) ? hotCache : localCache;
+    }
+
+    private AsyncCache<Object, Object> asyncLocalCacheFor(String key) {
+        return isHotKey(key) ? asyncHotCache : asyncLocalCache;
+    }
+
+    /**
+     * 热点 key 晋升：将普通本地缓存中的值移入热点专区
+     */
+    private void promoteHotKey(String key) {
+        Object value = localCache.getIfPresent(key);
+        if (value != null) {
+            hotCache.put(key, value);
+            localCache.invalidate(key);
+        }
+    }
+
+    /**
+     * 热点 key 降级：将热点专区中的值移回普通本地缓存
+     */
+    private void demoteHotKey(String key) {
+        Object value = hotCache.getIfPresent(key);
+        if (value != null) {
+            localCache.put(key, value);
+            hotCache.invalidate(key);
+        }
+        // 与本节点是否持有该值无关：值可能已被淘汰，或本节点从未读取过
+        if (cacheProperties.getLogicalExpire().isEnabled()) {
+            restorePhysicalTtl(key, isLogical(value) ? (CacheEnvelope) value : null);
+        }
+    }
+
+    /**
+     * 不再是热点的 key 恢复物理过期，避免逻辑过期的值永久留在 Redis。
+     * 只对没有 TTL 的 key 生效；本节点持有逻辑过期值时按其过期时间，否则按区域默认 TTL。熔断期间跳过
+     */
+    @SuppressWarnings("unchecked")
+    private void restorePhysicalTtl(String key, CacheEnvelope envelope) {
+        if (!redisAvailable()) {
+            return;
+        }
+        long ttlMillis = envelope != null
+                ? Math.max(envelope.getExpireAt() - System.currentTimeMillis(), 1000L)
+                : TimeUnit.SECONDS.toMillis(getRandomTtl(0));
+        byte[] rawKey = ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(redisKey(key));
+        byte[] rawTtl = String.valueOf(ttlMillis).getBytes(StandardCharsets.UTF_8);
         try {
-            redisTemplate.opsForValue().set(key, value, ttlSeconds, TimeUnit.SECONDS);
+            redisCall(() -> redisTemplate.execute((RedisCallback<Object>) connection -> connection.scriptingCommands()
+                    .eval(RESTORE_TTL_SCRIPT, ReturnType.INTEGER, 1, rawKey, rawTtl)));
         } catch (Exception e) {
-            // 记录日志，不影响主流程
+            log.warn("[Cache] Restore ttl of demoted key failed, key: {}, error: {}", key, e.getMessage());
         }
     }
 
+    /**
+     * 一次 pipeline 批量写入 Redis，每个 key 单独生成随机 TTL，空值占位符使用空值 TTL；Redis 不可用时不写入
+     *
+     * @param computeMillis 加载这批值的耗时，未知时为 0
+     * @return 实际写入的值（需要时为包装后的值），用于回填本地缓存
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> putAllToRedis(Map<String, Object> storeValues, long ttlSeconds, long computeMillis) {
+        if (storeValues.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        long nullValueTtl = cacheProperties.getRedis().getNullValueTtl().getSeconds();
+        Map<String, Long> ttls = new HashMap<>(storeValues.size());
+        Map<String, Object> cachedValues = new LinkedHashMap<>(storeValues.size());
+        storeValues.forEach((key, value) -> {
+            long ttl = value instanceof NullValue ? nullValueTtl : getRandomTtl(ttlSeconds);
+            ttls.put(key, ttl);
+            cachedValues.put(key, wrapForRedis(key, value, ttl, computeMillis));
+        });
+
+        if (!redisAvailable()) {
+            recordPendingDeletes(redisKeys(cachedValues.keySet()));
+            return cachedValues;
+        }
+
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        try {
+            redisCall(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Map.Entry<String, Object> entry : cachedValues.entrySet()) {
+                    // 逻辑过期的值不设置 TTL
+                    Expiration expiration = isLogical(entry.getValue())
+                            ? Expiration.persistent()
+                            : Expiration.seconds(ttls.get(entry.getKey()));
+                    connection.stringCommands().set(keySerializer.serialize(redisKey(entry.getKey())),
+                            valueSerializer.serialize(entry.getValue()),
+                            expiration,
+                            RedisStringCommands.SetOption.upsert());
+                }
+                return null;
+            }));
+        } catch (Exception e) {
+            // Redis 中可能仍是旧值，恢复后补删
+            recordPendingDeletes(redisKeys(cachedValues.keySet()));
+        }
+
+        // 如果是热点key，加入热点key管理
+        ttls.forEach((key, ttl) -> {
+            if (!(storeValues.get(key) instanceof NullValue) && isHotKey(key)) {
+                hotKeyManager.addHotKey(redisKey(key), ttl);
+            }
+        });
+        return cachedValues;
+    }
 
     /**
      * 生成随机 TTL，为缓存项设置不同的过期时间，以避免缓存雪崩
@@ -126,6 +1906,10 @@ public class DefaultMultiLevelCacheManager implements MultiLevelCacheManager, In
      * @return 基础 TTL + 随机偏移（秒）
      */
     private long getRandomTtl(long baseTtlSeconds) {
+        // 未指定 TTL 时使用区域的默认 TTL
+        if (baseTtlSeconds <= 0) {
+            baseTtlSeconds = cacheProperties.getRedis().getDefaultTtl().getSeconds();
+        }
         Duration range = cacheProperties.getRedis().getRandomTtlRange();
 
         // randomTtlRange <= 0 直接返回
@@ -150,15 +1934,69 @@ public class DefaultMultiLevelCacheManager implements MultiLevelCacheManager, In
             // 设置随机TTL
             long randomTtl = getRandomTtl(ttlSeconds);
 
+            Object storeValue = toStoreValue(value);
+            if (storeValue == null) {
+                // 不缓存空值时，put(null) 等同于清除
+                evict(key);
+                return;
+            }
+            if (storeValue instanceof NullValue) {
+                randomTtl = cacheProperties.getRedis().getNullValueTtl().getSeconds();
+            } else if (penetrationGuard != null) {
+                penetrationGuard.put(key);
+            }
+
             // 更新本地缓存
-            localCache.put(key, value);
+            Object cachedValue = wrapForRedis(key, storeValue, randomTtl, 0);
+            removeOffHeap(key);
+            localCacheFor(key).put(key, cachedValue);
+            removeStale(key);
 
             // 更新Redis缓存
-            putToRedis(key, value, randomTtl);
+            writeToRedis(key, cachedValue, randomTtl);
+
+            // 通知其他节点丢弃旧值
+            publishInvalidation(key, OP_EVICT);
 
             // 如果是热点key，更新热点key管理
-            if (hotKeyManager.isHotKey(key)) {
-                hotKeyManager.addHotKey(key, randomTtl);
+            if (redisAvailable() && isHotKey(key)) {
+                hotKeyManager.addHotKey(redisKey(key), randomTtl);
+            }
+        } catch (Exception e) {
+            throw new CacheException("Put cache error", e);
+        }
+    }
+
+    @Override
+    public void putAll(Map<String, ?> values, long ttlSeconds) {
+        try {
+            Map<String, Object> storeValues = new LinkedHashMap<>(values.size());
+            List<String> evictKeys = new ArrayList<>();
+            values.forEach((key, value) -> {
+                Object storeValue = toStoreValue(value);
+                if (storeValue == null) {
+                    // 不缓存空值时，put(null) 等同于清除
+                    evictKeys.add(key);
+                    return;
+                }
+                if (!(storeValue instanceof NullValue) && penetrationGuard != null) {
+                    penetrationGuard.put(key);
+                }
+                storeValues.put(key, storeValue);
+            });
+
+            putAllToRedis(storeValues, ttlSeconds, 0)
+                    .forEach((key, cachedValue) -> {
+                        removeOffHeap(key);
+                        localCacheFor(key).put(key, cachedValue);
+                        removeStale(key);
+                    });
+            storeValues.keySet().forEach(key -> publishInvalidation(key, OP_EVICT));
+
+            if (!evictKeys.isEmpty()) {
+                evictLocal(evictKeys);
+                deleteFromRedis(redisKeys(evictKeys));
+                evictKeys.forEach(key -> publishInvalidation(key, OP_EVICT));
             }
         } catch (Exception e) {
             throw new CacheException("Put cache error", e);
@@ -169,24 +2007,106 @@ public class DefaultMultiLevelCacheManager implements MultiLevelCacheManager, In
     public void evict(String key) {
         try {
             localCache.invalidate(key);
-            redisTemplate.delete(key);
+            hotCache.invalidate(key);
+            removeOffHeap(key);
+            removeStale(key);
+            deleteFromRedis(Collections.singletonList(redisKey(key)));
+            publishInvalidation(key, OP_EVICT);
         } catch (Exception e) {
             throw new CacheException("Evict cache error", e);
         }
     }
 
+    /**
+     * 删除 Redis 中的 key。熔断期间无法删除，记录下来在熔断器离开熔断状态后补删
+     */
+    private void deleteFromRedis(Collection<String> redisKeys) {
+        if (!redisAvailable()) {
+            recordPendingDeletes(redisKeys);
+            return;
+        }
+        try {
+            redisCall(() -> redisTemplate.delete(redisKeys));
+        } catch (RuntimeException e) {
+            recordPendingDeletes(redisKeys);
+            throw e;
+        }
+    }
+
     @Override
     public void clear() {
         try {
             localCache.invalidateAll();
-            // Redis不建议直接清空，这里只是示例
-            // 生产环境应该使用更精细的缓存清理策略
-            Set<String> keys = redisTemplate.keys("*");
-            if (keys != null && !keys.isEmpty()) {
-                redisTemplate.delete(keys);
+            hotCache.invalidateAll();
+            clearOffHeap();
+            if (staleCache != null) {
+                staleCache.invalidateAll();
+            }
+
+            // 没有前缀时无法区分缓存数据和其他数据，不清理 Redis
+            if (keyPrefix.isEmpty()) {
+                log.warn("[Cache] Key prefix is empty, skip clearing redis, region: {}", region);
+            } else if (!redisAvailable()) {
+                if (pendingDeletes != null) {
+                    pendingClear.set(true);
+                    pendingDeletes.clear();
+                }
+                log.warn("[Cache] Redis unavailable, clear redis after recovery, region: {}", region);
+            } else {
+                clearRedis();
             }
+
+            // 与 evict 一致，Redis 清理完成后再通知其他节点，避免其他节点在清理期间读回旧值
+            publishInvalidation(CLEAR_ALL, OP_CLEAR);
         } catch (Exception e) {
             throw new CacheException("Clear cache error", e);
         }
     }
+
+    /**
+     * 按前缀 SCAN 分批删除本区域在 Redis 中的数据，UNLINK 在后台线程释放内存，不阻塞 Redis
+     */
+    private void clearRedis() {
+        long deleted = RedisKeyScanner.scan(redisTemplate, RedisKeyScanner.prefixPattern(keyPrefix),
+                cacheProperties.getRedis().getScanCount(),
+                keys -> {
+                    redisTemplate.unlink(keys);
+                    return true;
+                });
+        log.info("[Cache] Cleared redis keys, region: {}, prefix: {}, count: {}", region, keyPrefix, deleted);
+    }
+
+    /**
+     * 预热：按前缀 SCAN 本区域在 Redis 中的数据，分批 MGET 填充本地缓存
+     *
+     * @param maxEntries 最多填充的条目数
+     * @return 实际填充的条目数
+     */
+    public int warm(int maxEntries) {
+        if (keyPrefix.isEmpty() || maxEntries <= 0 || !redisAvailable()) {
+            return 0;
+        }
+
+        int[] warmed = {0};
+        try {
+            RedisKeyScanner.scan(redisTemplate, RedisKeyScanner.prefixPattern(keyPrefix),
+                    cacheProperties.getRedis().getScanCount(),
+                    redisKeys -> {
+                        List<Object> values = redisTemplate.opsForValue().multiGet(redisKeys);
+                        for (int i = 0; i < redisKeys.size() && warmed[0] < maxEntries; i++) {
+                            Object value = values != null ? values.get(i) : null;
+                            if (value == null) {
+                                continue;
+                            }
+                            String key = localKey(redisKeys.get(i));
+                            localCacheFor(key).put(key, value);
+                            warmed[0]++;
+                        }
+                        return warmed[0] < maxEntries;
+                    });
+        } catch (Exception e) {
+            log.warn("[Cache] Warm local cache failed, region: {}, error: {}", region, e.getMessage());
+        }
+        return warmed[0];
+    }
 }
\ No newline at end of file
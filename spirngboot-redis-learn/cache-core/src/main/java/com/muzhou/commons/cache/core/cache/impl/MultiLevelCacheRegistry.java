@@ -0,0 +1,204 @@
+package com.muzhou.commons.cache.core.cache.impl;
+
+import com.muzhou.commons.cache.autoconfigure.properties.CacheProperties;
+import com.muzhou.commons.cache.core.bus.MessageBus;
+import com.muzhou.commons.cache.core.cache.MultiLevelCacheManager;
+import com.muzhou.commons.cache.core.cache.support.RedisCircuitBreaker;
+import com.muzhou.commons.cache.core.hotkey.HotKeyManager;
+import com.muzhou.commons.cache.core.loader.CacheLoaderRegistry;
+import com.muzhou.commons.cache.core.lock.DistributedLock;
+import com.muzhou.commons.cache.core.penetration.PenetrationGuard;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 命名缓存区域的注册表
+ * <p>
+ * 每个区域是一个独立的 {@link DefaultMultiLevelCacheManager}：使用各自的 Redis 键前缀、本地缓存容量和过期时间，
+ * 失效消息按区域隔离，清理和预热只涉及本区域前缀下的 key。未指定区域时使用全局配置的默认区域。
+ * <p>
+ * 热点 key 管理器、分布式锁、消息总线、Redis 熔断器以及线程池和读合并（{@link SharedCacheResources}）由所有区域共用，
+ * 穿透防护按区域设置。
+ * 堆外缓存按区域划分总容量，见 {@link CacheProperties#forRegion(String)}。
+ */
+public class MultiLevelCacheRegistry implements InitializingBean, DisposableBean {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final HotKeyManager hotKeyManager;
+    private final CacheProperties cacheProperties;
+    private final DistributedLock distributedLock;
+
+    private MessageBus messageBus;
+    private PenetrationGuard penetrationGuard;
+    private final Map<String, PenetrationGuard> regionPenetrationGuards = new HashMap<>();
+    private MeterRegistry meterRegistry;
+    private CacheLoaderRegistry loaderRegistry;
+
+    /**
+     * 开启熔断时所有区域共用的熔断器，各区域访问同一个 Redis，熔断和探测只需一份
+     */
+    private RedisCircuitBreaker circuitBreaker;
+
+    /**
+     * 所有区域共用的线程池和读合并，线程数和队列容量按全局配置
+     */
+    private SharedCacheResources sharedResources;
+
+    private DefaultMultiLevelCacheManager defaultManager;
+    private final Map<String, DefaultMultiLevelCacheManager> regions = new LinkedHashMap<>();
+
+    public MultiLevelCacheRegistry(
+            RedisTemplate<String, Object> redisTemplate,
+            HotKeyManager hotKeyManager,
+            CacheProperties cacheProperties,
+            DistributedLock distributedLock) {
+        this.redisTemplate = redisTemplate;
+        this.hotKeyManager = hotKeyManager;
+        this.cacheProperties = cacheProperties;
+        this.distributedLock = distributedLock;
+    }
+
+    /**
+     * 开启跨节点本地缓存失效（可选），所有区域共用
+     */
+    public void setMessageBus(MessageBus messageBus) {
+        this.messageBus = messageBus;
+    }
+
+    /**
+     * 开启默认区域的缓存穿透防护（可选）
+     * <p>
+     * 过滤器登记的是不带区域前缀的业务 key，不同区域的同名 key 无法区分，因此不与命名区域共用，
+     * 命名区域通过 {@link #setPenetrationGuard(String, PenetrationGuard)} 单独设置
+     */
+    public void setPenetrationGuard(PenetrationGuard penetrationGuard) {
+        this.penetrationGuard = penetrationGuard;
+    }
+
+    /**
+     * 开启指定区域的缓存穿透防护（可选），未设置的区域不做穿透防护
+     */
+    public void setPenetrationGuard(String region, PenetrationGuard penetrationGuard) {
+        regionPenetrationGuards.put(region, penetrationGuard);
+    }
+
+    /**
+     * 开启指标（可选），各区域的指标以 region 标签区分
+     */
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 开启热点预加载（可选），所有区域共用，模式匹配不带区域前缀的 key
+     */
+    public void setLoaderRegistry(CacheLoaderRegistry loaderRegistry) {
+        this.loaderRegistry = loaderRegistry;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        validateKeyPrefixes();
+        if (cacheProperties.getCircuitBreaker().isEnabled()) {
+            this.circuitBreaker = new RedisCircuitBreaker(cacheProperties.getCircuitBreaker(),
+                    () -> redisTemplate.execute((RedisCallback<String>) RedisConnection::ping));
+        }
+        this.sharedResources = new SharedCacheResources(redisTemplate, cacheProperties, loaderRegistry != null);
+        this.defaultManager = createManager(cacheProperties.forDefaultRegion(), null, penetrationGuard);
+        for (String name : cacheProperties.getRegions().keySet()) {
+            regions.put(name, createManager(cacheProperties.forRegion(name), name, regionPenetrationGuards.get(name)));
+        }
+    }
+
+    /**
+     * 各区域（含默认区域）的 Redis 键前缀不能相同或互为前缀，否则一个区域的清理、预热和快照会扫到另一个区域的 key。
+     * 例如默认前缀 cache: 与名为 cache 的区域的默认前缀相同
+     */
+    private void validateKeyPrefixes() {
+        Map<String, String> prefixes = new LinkedHashMap<>();
+        prefixes.put("default", cacheProperties.getRedis().getKeyPrefix());
+        for (String name : cacheProperties.getRegions().keySet()) {
+            prefixes.put("region '" + name + "'", cacheProperties.forRegion(name).getRedis().getKeyPrefix());
+        }
+        for (Map.Entry<String, String> a : prefixes.entrySet()) {
+            for (Map.Entry<String, String> b : prefixes.entrySet()) {
+                if (a != b && b.getValue().startsWith(a.getValue())) {
+                    throw new IllegalStateException("Cache key prefix '" + a.getValue() + "' of " + a.getKey()
+                            + " overlaps with prefix '" + b.getValue() + "' of " + b.getKey());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        regions.values().forEach(DefaultMultiLevelCacheManager::destroy);
+        if (defaultManager != null) {
+            defaultManager.destroy();
+        }
+        if (sharedResources != null) {
+            sharedResources.close();
+        }
+        if (circuitBreaker != null) {
+            circuitBreaker.close();
+        }
+    }
+
+    /**
+     * 默认区域，使用全局配置
+     */
+    public MultiLevelCacheManager getDefault() {
+        return defaultManager;
+    }
+
+    /**
+     * 获取指定区域
+     *
+     * @throws IllegalArgumentException 区域未配置
+     */
+    public MultiLevelCacheManager getRegion(String name) {
+        DefaultMultiLevelCacheManager manager = regions.get(name);
+        if (manager == null) {
+            throw new IllegalArgumentException("Unknown cache region: " + name);
+        }
+        return manager;
+    }
+
+    public Set<String> getRegionNames() {
+        return Collections.unmodifiableSet(regions.keySet());
+    }
+
+    /**
+     * 按前缀 SCAN 预热指定区域的本地缓存
+     *
+     * @return 实际填充的条目数
+     */
+    public int warm(String name, int maxEntries) {
+        return ((DefaultMultiLevelCacheManager) getRegion(name)).warm(maxEntries);
+    }
+
+    private DefaultMultiLevelCacheManager createManager(CacheProperties properties, String region,
+                                                        PenetrationGuard penetrationGuard) {
+        DefaultMultiLevelCacheManager manager = new DefaultMultiLevelCacheManager(
+                redisTemplate, hotKeyManager, properties, distributedLock);
+        manager.setRegion(region);
+        manager.setMessageBus(messageBus);
+        manager.setPenetrationGuard(penetrationGuard);
+        manager.setMeterRegistry(meterRegistry);
+        manager.setCircuitBreaker(circuitBreaker);
+        manager.setLoaderRegistry(loaderRegistry);
+        manager.setSharedResources(sharedResources);
+        manager.afterPropertiesSet();
+        return manager;
+    }
+}
@@ -0,0 +1,131 @@
+package com.muzhou.commons.cache.core.cache.impl;
+
+import com.muzhou.commons.cache.autoconfigure.properties.CacheProperties;
+import com.muzhou.commons.cache.core.cache.support.AsyncRedisOperations;
+import com.muzhou.commons.cache.core.cache.support.RedisReadCoalescer;
+import io.micrometer.core.instrument.util.NamedThreadFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多级缓存的线程池和 Redis 连接类资源
+ * <p>
+ * 与区域无关（只访问完整的 Redis key），由 {@link MultiLevelCacheRegistry} 创建一份供所有区域共用，
+ * 单独使用 {@link DefaultMultiLevelCacheManager} 时由其自行创建。线程数和队列容量按全局配置，是所有区域的总量。
+ */
+public class SharedCacheResources implements AutoCloseable {
+
+    /**
+     * 异步路径的回调、超时和非 Lettuce 连接下的 Redis 操作都在该线程池执行，不占用请求线程
+     */
+    private final ScheduledExecutorService asyncExecutor;
+    private final AsyncRedisOperations asyncRedisOperations;
+
+    /**
+     * Redis 读合并，未开启时为空
+     */
+    private final RedisReadCoalescer readCoalescer;
+
+    /**
+     * 本地缓存提前刷新的线程池，未配置 refreshAfterWrite 时为空
+     */
+    private final ThreadPoolExecutor refreshExecutor;
+
+    /**
+     * 逻辑过期和提前刷新的后台重建线程池，两者都未开启时为空
+     */
+    private final ThreadPoolExecutor rebuildExecutor;
+
+    /**
+     * 热点预加载调用数据源的线程池，不需要预加载时为空
+     */
+    private final ThreadPoolExecutor preloadExecutor;
+
+    /**
+     * @param preload 是否需要热点预加载线程池（设置了加载器注册表）
+     */
+    public SharedCacheResources(RedisTemplate<String, Object> redisTemplate,
+                                CacheProperties cacheProperties,
+                                boolean preload) {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+                Runtime.getRuntime().availableProcessors(), new NamedThreadFactory("cache-async-"));
+        executor.setRemoveOnCancelPolicy(true);
+        this.asyncExecutor = executor;
+        this.asyncRedisOperations = new AsyncRedisOperations(redisTemplate, asyncExecutor);
+
+        CacheProperties.Coalescing coalescing = cacheProperties.getCoalescing();
+        this.readCoalescer = coalescing.isEnabled()
+                ? new RedisReadCoalescer(redisTemplate, coalescing.getWindow().toNanos(), coalescing.getMaxBatch(),
+                        coalescing.getTimeout().toNanos())
+                : null;
+
+        CacheProperties.Local local = cacheProperties.getLocal();
+        this.refreshExecutor = local.getRefreshAfterWrite() != null
+                ? newPool(local.getRefreshThreads(), local.getRefreshQueueCapacity(), "cache-refresh-")
+                : null;
+
+        CacheProperties.LogicalExpire logicalExpire = cacheProperties.getLogicalExpire();
+        this.rebuildExecutor = logicalExpire.isEnabled() || cacheProperties.getEarlyRefresh().isEnabled()
+                ? newPool(logicalExpire.getRebuildThreads(), logicalExpire.getRebuildQueueCapacity(), "cache-rebuild-")
+                : null;
+
+        CacheProperties.Preload preloadProperties = cacheProperties.getPreload();
+        this.preloadExecutor = preload
+                ? newPool(preloadProperties.getThreads(), preloadProperties.getQueueCapacity(), "cache-preload-")
+                : null;
+    }
+
+    private static ThreadPoolExecutor newPool(int threads, int queueCapacity, String namePrefix) {
+        return new ThreadPoolExecutor(threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                new NamedThreadFactory(namePrefix));
+    }
+
+    public ScheduledExecutorService getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    public AsyncRedisOperations getAsyncRedisOperations() {
+        return asyncRedisOperations;
+    }
+
+    public RedisReadCoalescer getReadCoalescer() {
+        return readCoalescer;
+    }
+
+    public ThreadPoolExecutor getRefreshExecutor() {
+        return refreshExecutor;
+    }
+
+    public ThreadPoolExecutor getRebuildExecutor() {
+        return rebuildExecutor;
+    }
+
+    public ThreadPoolExecutor getPreloadExecutor() {
+        return preloadExecutor;
+    }
+
+    @Override
+    public void close() {
+        asyncRedisOperations.close();
+        asyncExecutor.shutdownNow();
+        if (readCoalescer != null) {
+            readCoalescer.close();
+        }
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+        if (rebuildExecutor != null) {
+            rebuildExecutor.shutdownNow();
+        }
+        if (preloadExecutor != null) {
+            preloadExecutor.shutdownNow();
+        }
+    }
+}
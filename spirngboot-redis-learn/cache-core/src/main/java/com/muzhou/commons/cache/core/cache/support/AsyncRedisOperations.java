@@ -0,0 +1,106 @@
+package com.muzhou.commons.cache.core.cache.support;
+
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 非阻塞的 Redis 操作
+ * <p>
+ * 连接工厂为 Lettuce 时直接使用 Lettuce 异步命令，调用线程不会阻塞在网络 IO 上；
+ * 否则退化为在给定的有界线程池上执行 RedisTemplate 同步操作。
+ * 键值序列化与 RedisTemplate 保持一致。
+ */
+@Slf4j
+public class AsyncRedisOperations implements AutoCloseable {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final Executor fallbackExecutor;
+    private final RedisSerializer<String> keySerializer;
+    private final RedisSerializer<Object> valueSerializer;
+
+    private final StatefulConnection<byte[], byte[]> connection;
+    private final RedisClusterAsyncCommands<byte[], byte[]> commands;
+
+    @SuppressWarnings("unchecked")
+    public AsyncRedisOperations(RedisTemplate<String, Object> redisTemplate, Executor fallbackExecutor) {
+        this.redisTemplate = redisTemplate;
+        this.fallbackExecutor = fallbackExecutor;
+        this.keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        this.valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+
+        StatefulConnection<byte[], byte[]> nativeConnection = null;
+        RedisClusterAsyncCommands<byte[], byte[]> asyncCommands = null;
+        RedisConnectionFactory connectionFactory = redisTemplate.getConnectionFactory();
+        if (connectionFactory instanceof LettuceConnectionFactory) {
+            try {
+                AbstractRedisClient client = ((LettuceConnectionFactory) connectionFactory).getNativeClient();
+                if (client instanceof RedisClusterClient) {
+                    StatefulRedisClusterConnection<byte[], byte[]> clusterConnection =
+                            ((RedisClusterClient) client).connect(ByteArrayCodec.INSTANCE);
+                    nativeConnection = clusterConnection;
+                    asyncCommands = clusterConnection.async();
+                } else if (client instanceof RedisClient) {
+                    StatefulRedisConnection<byte[], byte[]> standaloneConnection =
+                            ((RedisClient) client).connect(ByteArrayCodec.INSTANCE);
+                    nativeConnection = standaloneConnection;
+                    asyncCommands = standaloneConnection.async();
+                }
+            } catch (Exception e) {
+                log.warn("[Cache] Open lettuce async connection failed, fallback to executor: {}", e.getMessage());
+            }
+        }
+        this.connection = nativeConnection;
+        this.commands = asyncCommands;
+    }
+
+    public CompletableFuture<Object> get(String key) {
+        if (commands == null) {
+            return CompletableFuture.supplyAsync(() -> redisTemplate.opsForValue().get(key), fallbackExecutor);
+        }
+        return commands.get(keySerializer.serialize(key))
+                .toCompletableFuture()
+                .thenApply(valueSerializer::deserialize);
+    }
+
+    /**
+     * @param ttlSeconds 过期时间，小于等于 0 时不设置过期时间
+     */
+    public CompletableFuture<Void> set(String key, Object value, long ttlSeconds) {
+        if (commands == null) {
+            return CompletableFuture.runAsync(() -> {
+                if (ttlSeconds > 0) {
+                    redisTemplate.opsForValue().set(key, value, ttlSeconds, TimeUnit.SECONDS);
+                } else {
+                    redisTemplate.opsForValue().set(key, value);
+                }
+            }, fallbackExecutor);
+        }
+        byte[] rawKey = keySerializer.serialize(key);
+        byte[] rawValue = valueSerializer.serialize(value);
+        return (ttlSeconds > 0 ? commands.setex(rawKey, ttlSeconds, rawValue) : commands.set(rawKey, rawValue))
+                .toCompletableFuture()
+                .thenApply(ok -> null);
+    }
+
+    @Override
+    public void close() {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+}
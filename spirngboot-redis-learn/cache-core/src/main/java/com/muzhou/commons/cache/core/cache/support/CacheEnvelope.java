@@ -0,0 +1,96 @@
+package com.muzhou.commons.cache.core.cache.support;
+
+import java.io.Serializable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 携带过期信息的缓存值
+ * <p>
+ * 逻辑过期：Redis 中不设置 TTL，过期时间随值一起保存。读取方发现逻辑过期后仍返回旧值，
+ * 由后台任务重建，热点 key 不会出现物理过期瞬间的击穿。
+ * <p>
+ * 提前刷新：同时保存重新计算的耗时，读取方按 XFetch 算法以随过期临近而增大的概率提前触发重建，
+ * 同一 key 的重建分散在过期前的一段时间内，而不是在过期瞬间集中到达。
+ */
+public class CacheEnvelope implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Object value;
+
+    /**
+     * 逻辑过期时间戳（毫秒）
+     */
+    private long expireAt;
+
+    /**
+     * 重新计算该值的耗时（毫秒）
+     */
+    private long computeMillis;
+
+    /**
+     * true 表示逻辑过期，Redis 中不设置 TTL；false 表示 Redis 按 expireAt 物理过期
+     */
+    private boolean logical;
+
+    public CacheEnvelope() {
+    }
+
+    public CacheEnvelope(Object value, long expireAt, long computeMillis, boolean logical) {
+        this.value = value;
+        this.expireAt = expireAt;
+        this.computeMillis = computeMillis;
+        this.logical = logical;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public void setValue(Object value) {
+        this.value = value;
+    }
+
+    public long getExpireAt() {
+        return expireAt;
+    }
+
+    public void setExpireAt(long expireAt) {
+        this.expireAt = expireAt;
+    }
+
+    public long getComputeMillis() {
+        return computeMillis;
+    }
+
+    public void setComputeMillis(long computeMillis) {
+        this.computeMillis = computeMillis;
+    }
+
+    public boolean isLogical() {
+        return logical;
+    }
+
+    public void setLogical(boolean logical) {
+        this.logical = logical;
+    }
+
+    /**
+     * 带参数而非 getter，避免被 JSON 序列化为属性
+     */
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expireAt;
+    }
+
+    /**
+     * XFetch：now - computeMillis * beta * ln(rand) >= expireAt 时提前刷新。
+     * 重新计算越慢、越接近过期，提前刷新的概率越大；beta 大于 1 倾向更早刷新
+     */
+    public boolean shouldRefreshEarly(long nowMillis, double beta) {
+        if (computeMillis <= 0) {
+            return isExpired(nowMillis);
+        }
+        double gap = -computeMillis * beta * Math.log(ThreadLocalRandom.current().nextDouble());
+        return nowMillis + gap >= expireAt;
+    }
+}
@@ -0,0 +1,188 @@
+package com.muzhou.commons.cache.core.cache.support;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 本地缓存快照文件，用于重启后快速预热
+ * <p>
+ * 文件格式：magic(4) + 版本(4) + 创建时间(8) + 值结构版本 + 热点数量(4) + 热点 key 列表 + 条目数量(4) + 条目列表。
+ * 字符串和字节数组均以 长度(4) + 内容 保存；条目为 是否热点专区(1) + key + 过期时间(8) + 值。
+ * 值结构版本由使用方指定，读取时不一致则整体忽略，缓存值的类有不兼容改动后不会恢复出错误的对象。
+ * <p>
+ * 通过内存映射文件读写，先写临时文件再替换，写入中断不会留下不完整的快照。
+ */
+public final class CacheSnapshot {
+
+    private static final int MAGIC = 0x4D4C4353;
+    private static final int VERSION = 2;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private CacheSnapshot() {
+    }
+
+    /**
+     * @param schemaVersion 值结构版本，读取时需要一致
+     */
+    public static void write(Path path, String schemaVersion, Collection<String> hotKeys,
+                             List<Entry> entries) throws IOException {
+        byte[] schemaVersionBytes = schemaVersion.getBytes(StandardCharsets.UTF_8);
+        List<byte[]> hotKeyBytes = new ArrayList<>(hotKeys.size());
+        long size = 4 + 4 + 8 + 4 + schemaVersionBytes.length + 4 + 4;
+        for (String hotKey : hotKeys) {
+            byte[] bytes = hotKey.getBytes(StandardCharsets.UTF_8);
+            hotKeyBytes.add(bytes);
+            size += 4 + bytes.length;
+        }
+        List<byte[]> entryKeys = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            byte[] bytes = entry.key.getBytes(StandardCharsets.UTF_8);
+            entryKeys.add(bytes);
+            size += 1 + 4 + bytes.length + 8 + 4 + entry.value.length;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot exceeds 2GB, reduce max entries");
+        }
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putLong(System.currentTimeMillis());
+            putBytes(buffer, schemaVersionBytes);
+            buffer.putInt(hotKeyBytes.size());
+            for (byte[] bytes : hotKeyBytes) {
+                putBytes(buffer, bytes);
+            }
+            buffer.putInt(entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                buffer.put(entry.hot ? (byte) 1 : (byte) 0);
+                putBytes(buffer, entryKeys.get(i));
+                buffer.putLong(entry.expireAt);
+                putBytes(buffer, entry.value);
+            }
+            buffer.force();
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 逐条读取快照，已过期的条目直接跳过
+     *
+     * @param maxAgeMillis  快照创建超过该时长则整体忽略，期间错过的失效通知可能导致数据过旧
+     * @param schemaVersion 值结构版本，与快照中的不一致则整体忽略
+     * @return 快照不存在、已过时、值结构版本或格式不匹配时返回 false
+     */
+    public static boolean read(Path path, long maxAgeMillis, String schemaVersion,
+                               Consumer<Set<String>> hotKeysConsumer, Consumer<Entry> entryConsumer) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return false;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 16 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return false;
+            }
+            long now = System.currentTimeMillis();
+            if (now - buffer.getLong() > maxAgeMillis) {
+                return false;
+            }
+            if (!schemaVersion.equals(new String(getBytes(buffer), StandardCharsets.UTF_8))) {
+                return false;
+            }
+
+            int hotKeyCount = buffer.getInt();
+            Set<String> hotKeys = new LinkedHashSet<>(hotKeyCount);
+            for (int i = 0; i < hotKeyCount; i++) {
+                hotKeys.add(new String(getBytes(buffer), StandardCharsets.UTF_8));
+            }
+            hotKeysConsumer.accept(hotKeys);
+
+            int entryCount = buffer.getInt();
+            for (int i = 0; i < entryCount; i++) {
+                boolean hot = buffer.get() == 1;
+                String key = new String(getBytes(buffer), StandardCharsets.UTF_8);
+                long expireAt = buffer.getLong();
+                int valueLength = buffer.getInt();
+                if (expireAt <= now) {
+                    buffer.position(buffer.position() + valueLength);
+                    continue;
+                }
+                byte[] value = new byte[valueLength];
+                buffer.get(value);
+                entryConsumer.accept(new Entry(key, value, expireAt, hot));
+            }
+            return true;
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException("Corrupted snapshot: " + path, e);
+        }
+    }
+
+    private static void putBytes(MappedByteBuffer buffer, byte[] bytes) {
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static byte[] getBytes(MappedByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * 快照中的一个缓存条目，值为编码后的字节
+     */
+    public static final class Entry {
+        private final String key;
+        private final byte[] value;
+        private final long expireAt;
+        private final boolean hot;
+
+        public Entry(String key, byte[] value, long expireAt, boolean hot) {
+            this.key = key;
+            this.value = value;
+            this.expireAt = expireAt;
+            this.hot = hot;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public byte[] getValue() {
+            return value;
+        }
+
+        public long getExpireAt() {
+            return expireAt;
+        }
+
+        /**
+         * 是否来自热点专区
+         */
+        public boolean isHot() {
+            return hot;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.muzhou.commons.cache.core.cache.support;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按估算的堆内存占用计算权重（字节）
+ * <p>
+ * 估算按 64 位 JVM、开启压缩指针的对象布局粗略计算，不追求精确，只需让大对象和小对象的权重拉开差距。
+ * 普通对象按字段递归估算，超过最大深度的部分不再计入，共享引用只计一次。
+ * 集合、Map 和对象数组只估算前 {@value #SAMPLE_SIZE} 个元素，按平均值外推到全部元素，权重计算耗时不随元素数量增长。
+ */
+public class EstimatedSizeWeigher implements Weigher<Object, Object> {
+
+    private static final int OBJECT_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int ENTRY_OVERHEAD = 32;
+    private static final int MAX_DEPTH = 8;
+    private static final int SAMPLE_SIZE = 32;
+
+    private final Map<Class<?>, List<Field>> fieldCache = new ConcurrentHashMap<>();
+
+    @Override
+    public int weigh(Object key, Object value) {
+        IdentityHashMap<Object, Boolean> visited = new IdentityHashMap<>();
+        long size = ENTRY_OVERHEAD + estimate(key, visited, 0) + estimate(value, visited, 0);
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    private long estimate(Object object, IdentityHashMap<Object, Boolean> visited, int depth) {
+        if (object == null || depth > MAX_DEPTH || visited.put(object, Boolean.TRUE) != null) {
+            return 0;
+        }
+
+        if (object instanceof String) {
+            // String 对象 + char[]
+            return 24 + align(OBJECT_HEADER + 2L * ((String) object).length());
+        }
+        if (object instanceof Long || object instanceof Double || object instanceof Date) {
+            return 24;
+        }
+        if (object instanceof Number || object instanceof Boolean || object instanceof Character) {
+            return 16;
+        }
+        if (object instanceof BigDecimal || object instanceof BigInteger) {
+            return 64;
+        }
+        if (object instanceof Enum) {
+            return 0;
+        }
+        if (object instanceof CacheEnvelope) {
+            return 40 + estimate(((CacheEnvelope) object).getValue(), visited, depth + 1);
+        }
+
+        Class<?> type = object.getClass();
+        if (type.isArray()) {
+            return estimateArray(object, type, visited, depth);
+        }
+        if (object instanceof Collection) {
+            Collection<?> collection = (Collection<?>) object;
+            long sampled = 0;
+            int count = 0;
+            for (Object element : collection) {
+                if (count == SAMPLE_SIZE) {
+                    break;
+                }
+                sampled += REFERENCE + estimate(element, visited, depth + 1);
+                count++;
+            }
+            return 48 + extrapolate(sampled, count, collection.size());
+        }
+        if (object instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) object;
+            long sampled = 0;
+            int count = 0;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (count == SAMPLE_SIZE) {
+                    break;
+                }
+                sampled += ENTRY_OVERHEAD
+                        + estimate(entry.getKey(), visited, depth + 1)
+                        + estimate(entry.getValue(), visited, depth + 1);
+                count++;
+            }
+            return 64 + extrapolate(sampled, count, map.size());
+        }
+
+        long size = OBJECT_HEADER;
+        for (Field field : fieldsOf(type)) {
+            Class<?> fieldType = field.getType();
+            if (fieldType.isPrimitive()) {
+                size += primitiveSize(fieldType);
+                continue;
+            }
+            size += REFERENCE;
+            try {
+                size += estimate(field.get(object), visited, depth + 1);
+            } catch (IllegalAccessException e) {
+                // 无法访问的字段只计引用
+            }
+        }
+        return align(size);
+    }
+
+    private long estimateArray(Object array, Class<?> type, IdentityHashMap<Object, Boolean> visited, int depth) {
+        int length = Array.getLength(array);
+        Class<?> componentType = type.getComponentType();
+        if (componentType.isPrimitive()) {
+            return align(OBJECT_HEADER + (long) length * primitiveSize(componentType));
+        }
+        Object[] elements = (Object[]) array;
+        int count = Math.min(length, SAMPLE_SIZE);
+        long sampled = 0;
+        for (int i = 0; i < count; i++) {
+            sampled += estimate(elements[i], visited, depth + 1);
+        }
+        return align(OBJECT_HEADER + (long) length * REFERENCE) + extrapolate(sampled, count, length);
+    }
+
+    /**
+     * 按抽样元素的平均大小外推全部元素的大小
+     */
+    private static long extrapolate(long sampled, int sampledCount, int totalCount) {
+        if (sampledCount == 0 || totalCount <= sampledCount) {
+            return sampled;
+        }
+        return sampled / sampledCount * totalCount;
+    }
+
+    private List<Field> fieldsOf(Class<?> type) {
+        return fieldCache.computeIfAbsent(type, t -> {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> c = t; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    try {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    } catch (RuntimeException e) {
+                        // 模块限制等无法访问的字段忽略
+                    }
+                }
+            }
+            return fields;
+        });
+    }
+
+    private static int primitiveSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        return 1;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
@@ -0,0 +1,117 @@
+package com.muzhou.commons.cache.core.cache.support;
+
+import com.muzhou.commons.cache.core.bus.MessageBus;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 缓存加载完成通知
+ * <p>
+ * 抢锁失败的请求通过 {@link #await(String)} 登记等待，持锁者写入 Redis 后调用
+ * {@link #notifyLoaded(String)} 唤醒本节点的等待者。其他节点的等待者通过消息总线唤醒：
+ * 是否有其他节点在等待由调用方判断，确认有等待者时才调用 {@link #publishLoaded(String)}，没有竞争的加载不产生消息。
+ * 同一 key 的等待者共享同一个 future，按登记数计数：提前结束的等待者释放登记时只减少计数，
+ * 最后一个等待者离开或收到通知时才移除，不会让其他等待者错过通知。
+ */
+public class LoadNotifier {
+
+    private final MessageBus messageBus;
+    private final String topic;
+    private final ConcurrentHashMap<String, Entry> waiters = new ConcurrentHashMap<>();
+
+    /**
+     * @param messageBus 消息总线，为空时只能唤醒本节点的等待者
+     * @param topic      加载通知的主题，每个区域单独一个，只收到本区域的通知
+     */
+    public LoadNotifier(MessageBus messageBus, String topic) {
+        this.messageBus = messageBus;
+        this.topic = topic;
+        if (messageBus != null) {
+            messageBus.subscribe(topic, this::notifyLoaded);
+        }
+    }
+
+    /**
+     * 是否能收到其他节点的加载通知
+     */
+    public boolean isClusterAware() {
+        return messageBus != null;
+    }
+
+    /**
+     * 登记等待 key 加载完成，等待结束后必须调用 {@link #release(Waiter)}
+     */
+    public Waiter await(String key) {
+        Entry entry = waiters.compute(key, (k, current) -> {
+            Entry e = current != null ? current : new Entry();
+            e.count++;
+            return e;
+        });
+        return new Waiter(key, entry);
+    }
+
+    /**
+     * 释放登记，同一个登记重复释放时只生效一次；该 key 没有其他等待者时移除
+     */
+    public void release(Waiter waiter) {
+        if (!waiter.released.compareAndSet(false, true)) {
+            return;
+        }
+        waiters.computeIfPresent(waiter.key, (k, current) -> {
+            if (current != waiter.entry) {
+                return current;
+            }
+            return --current.count == 0 ? null : current;
+        });
+    }
+
+    /**
+     * 通知本节点的等待者 key 已加载完成（无论成功与否），等待者随后自行读取 Redis
+     */
+    public void notifyLoaded(String key) {
+        Entry entry = waiters.remove(key);
+        if (entry != null) {
+            entry.future.complete(null);
+        }
+    }
+
+    /**
+     * 通过消息总线通知其他节点的等待者，发布失败时抛出异常
+     */
+    public void publishLoaded(String key) {
+        if (messageBus != null) {
+            messageBus.publish(topic, key);
+        }
+    }
+
+    /**
+     * 同一 key 的等待者共享的 future 和登记数，登记数在 compute 内修改
+     */
+    private static final class Entry {
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private int count;
+    }
+
+    /**
+     * 一次登记
+     */
+    public static final class Waiter {
+        private final String key;
+        private final Entry entry;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Waiter(String key, Entry entry) {
+            this.key = key;
+            this.entry = entry;
+        }
+
+        /**
+         * key 加载完成时完成的 future
+         */
+        public CompletableFuture<Void> getSignal() {
+            return entry.future;
+        }
+    }
+}
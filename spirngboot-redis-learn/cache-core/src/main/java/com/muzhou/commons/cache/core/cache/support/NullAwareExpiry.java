@@ -0,0 +1,53 @@
+package com.muzhou.commons.cache.core.cache.support;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.cache.support.NullValue;
+
+import java.time.Duration;
+
+/**
+ * 本地缓存过期策略：普通值按写入后过期时间，空值占位符使用更短的过期时间
+ * <p>
+ * 设置了 {@link WriteStamps} 时同时记录普通值的写入，供淘汰转存堆外时判断和沿用过期时间
+ */
+public class NullAwareExpiry implements Expiry<Object, Object> {
+
+    private final long valueTtlNanos;
+    private final long nullValueTtlNanos;
+    private final WriteStamps writeStamps;
+
+    public NullAwareExpiry(Duration valueTtl, Duration nullValueTtl) {
+        this(valueTtl, nullValueTtl, null);
+    }
+
+    /**
+     * @param writeStamps 写入记录，为空时不记录
+     */
+    public NullAwareExpiry(Duration valueTtl, Duration nullValueTtl, WriteStamps writeStamps) {
+        this.valueTtlNanos = valueTtl.toNanos();
+        // 空值不应比普通值存活更久
+        this.nullValueTtlNanos = Math.min(nullValueTtl.toNanos(), valueTtlNanos);
+        this.writeStamps = writeStamps;
+    }
+
+    @Override
+    public long expireAfterCreate(Object key, Object value, long currentTime) {
+        if (value instanceof NullValue) {
+            return nullValueTtlNanos;
+        }
+        if (writeStamps != null) {
+            writeStamps.record(key, value, valueTtlNanos);
+        }
+        return valueTtlNanos;
+    }
+
+    @Override
+    public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+        return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+}
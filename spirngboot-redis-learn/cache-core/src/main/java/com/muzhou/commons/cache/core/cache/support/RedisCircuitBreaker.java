@@ -0,0 +1,236 @@
+package com.muzhou.commons.cache.core.cache.support;
+
+import com.muzhou.commons.cache.autoconfigure.properties.CacheProperties;
+import io.micrometer.core.instrument.util.NamedThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Redis 熔断器
+ * <ul>
+ *     <li>CLOSED：正常访问 Redis，按时间窗口统计失败和慢调用，占比达到阈值后熔断</li>
+ *     <li>OPEN：不再访问 Redis，后台按间隔 PING，探测成功（且不慢）后进入半开</li>
+ *     <li>HALF_OPEN：只放行 halfOpenCalls 个请求试探，其余请求仍按熔断处理；连续成功 halfOpenCalls 次后恢复，
+ *     任何一次失败重新熔断。放行的请求不一定都访问 Redis，许可用完仍未恢复时每个探测间隔补发一批</li>
+ * </ul>
+ * 窗口到期后整体清零，统计是近似的，只用于判断 Redis 是否整体不可用。
+ * <p>
+ * 离开熔断状态（进入半开或恢复）时在探测线程上依次通知恢复监听器，用于补做熔断期间跳过的 Redis 写入。
+ */
+@Slf4j
+public class RedisCircuitBreaker implements AutoCloseable {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final long slowCallNanos;
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final long windowNanos;
+    private final int halfOpenCalls;
+    private final Runnable probe;
+    private final ScheduledExecutorService probeScheduler;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicReference<Window> window = new AtomicReference<>(new Window(System.nanoTime()));
+    private final AtomicInteger halfOpenSuccesses = new AtomicInteger();
+
+    /**
+     * 半开状态下剩余的放行许可
+     */
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+    private final LongAdder openedCount = new LongAdder();
+    private final List<Runnable> recoveryListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param properties 熔断配置
+     * @param probe      探测 Redis 是否可用，不可用时抛出异常
+     */
+    public RedisCircuitBreaker(CacheProperties.CircuitBreaker properties, Runnable probe) {
+        this.slowCallNanos = properties.getSlowCallThreshold().toNanos();
+        this.failureRateThreshold = properties.getFailureRateThreshold();
+        this.minimumCalls = Math.max(1, properties.getMinimumCalls());
+        this.windowNanos = properties.getWindow().toNanos();
+        this.halfOpenCalls = Math.max(1, properties.getHalfOpenCalls());
+        this.probe = probe;
+
+        long interval = properties.getProbeInterval().toMillis();
+        this.probeScheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("cache-circuit-probe-"));
+        this.probeScheduler.scheduleWithFixedDelay(this::probe, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 是否允许访问 Redis，熔断期间返回 false，半开期间只有取得许可的请求返回 true
+     */
+    public boolean allowRequest() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            return false;
+        }
+        while (true) {
+            int permits = halfOpenPermits.get();
+            if (permits <= 0) {
+                return false;
+            }
+            if (halfOpenPermits.compareAndSet(permits, permits - 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 记录一次成功的调用，超过慢调用阈值的按失败计
+     */
+    public void onSuccess(long elapsedNanos) {
+        if (elapsedNanos >= slowCallNanos) {
+            onFailure();
+            return;
+        }
+        State current = state.get();
+        if (current == State.HALF_OPEN) {
+            if (halfOpenSuccesses.incrementAndGet() >= halfOpenCalls) {
+                transition(State.HALF_OPEN, State.CLOSED);
+            }
+        } else if (current == State.CLOSED) {
+            currentWindow().calls.incrementAndGet();
+        }
+    }
+
+    /**
+     * 记录一次失败的调用
+     */
+    public void onFailure() {
+        State current = state.get();
+        if (current == State.HALF_OPEN) {
+            transition(State.HALF_OPEN, State.OPEN);
+            return;
+        }
+        if (current != State.CLOSED) {
+            return;
+        }
+        Window w = currentWindow();
+        int calls = w.calls.incrementAndGet();
+        int failures = w.failures.incrementAndGet();
+        if (calls >= minimumCalls && failures * 100L >= (long) failureRateThreshold * calls) {
+            transition(State.CLOSED, State.OPEN);
+        }
+    }
+
+    /**
+     * 登记恢复监听器，离开熔断状态时在探测线程上执行，执行期间可能再次熔断
+     */
+    public void addRecoveryListener(Runnable listener) {
+        recoveryListeners.add(listener);
+    }
+
+    public void removeRecoveryListener(Runnable listener) {
+        recoveryListeners.remove(listener);
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * 累计熔断次数
+     */
+    public long getOpenedCount() {
+        return openedCount.sum();
+    }
+
+    private Window currentWindow() {
+        long now = System.nanoTime();
+        Window w = window.get();
+        if (now - w.start < windowNanos) {
+            return w;
+        }
+        Window fresh = new Window(now);
+        return window.compareAndSet(w, fresh) ? fresh : window.get();
+    }
+
+    private void transition(State from, State to) {
+        if (!state.compareAndSet(from, to)) {
+            return;
+        }
+        if (to == State.OPEN) {
+            openedCount.increment();
+            log.warn("[Cache] Redis circuit breaker opened, serving from local cache only");
+        } else if (to == State.HALF_OPEN) {
+            halfOpenSuccesses.set(0);
+            halfOpenPermits.set(halfOpenCalls);
+            log.info("[Cache] Redis probe succeeded, circuit breaker half-open");
+        } else {
+            window.set(new Window(System.nanoTime()));
+            log.info("[Cache] Redis circuit breaker closed");
+        }
+        if (to != State.OPEN && !recoveryListeners.isEmpty()) {
+            try {
+                probeScheduler.execute(this::notifyRecovery);
+            } catch (RejectedExecutionException e) {
+                // 已关闭
+            }
+        }
+    }
+
+    private void notifyRecovery() {
+        for (Runnable listener : recoveryListeners) {
+            try {
+                listener.run();
+            } catch (Exception e) {
+                log.warn("[Cache] Circuit breaker recovery listener failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 熔断期间探测 Redis，PING 成功且耗时低于慢调用阈值时进入半开；
+     * 半开期间补足放行许可，避免取得许可的请求没有访问 Redis 时一直停留在半开
+     */
+    private void probe() {
+        State current = state.get();
+        if (current == State.HALF_OPEN) {
+            halfOpenPermits.set(halfOpenCalls);
+            return;
+        }
+        if (current != State.OPEN) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            probe.run();
+            if (System.nanoTime() - start < slowCallNanos) {
+                transition(State.OPEN, State.HALF_OPEN);
+            }
+        } catch (Exception e) {
+            log.debug("[Cache] Redis probe failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        probeScheduler.shutdownNow();
+    }
+
+    private static final class Window {
+        private final long start;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+
+        private Window(long start) {
+            this.start = start;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.muzhou.commons.cache.core.cache.support;
+
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * 基于 SCAN 游标的 key 遍历，替代会阻塞 Redis 的 KEYS
+ * <p>
+ * 每次 SCAN 只返回少量 key，服务端不会长时间阻塞；遍历期间新增或删除的 key 可能遗漏或重复返回，
+ * 调用方的处理需要是幂等的。
+ */
+public final class RedisKeyScanner {
+
+    private static final String GLOB_SPECIAL_CHARS = "*?[]\\";
+
+    private RedisKeyScanner() {
+    }
+
+    /**
+     * 遍历匹配 pattern 的 key，每凑满 batchSize 个回调一次
+     *
+     * @param batchConsumer 处理一批 key，返回 false 时停止遍历
+     * @return 回调处理过的 key 数量
+     */
+    public static long scan(RedisTemplate<String, ?> redisTemplate, String pattern, int batchSize,
+                            Predicate<List<String>> batchConsumer) {
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(batchSize).build();
+        long scanned = 0;
+        List<String> batch = new ArrayList<>(batchSize);
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() < batchSize) {
+                    continue;
+                }
+                scanned += batch.size();
+                if (!batchConsumer.test(batch)) {
+                    return scanned;
+                }
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            scanned += batch.size();
+            batchConsumer.test(batch);
+        }
+        return scanned;
+    }
+
+    /**
+     * 匹配以 prefix 开头的所有 key 的 pattern，prefix 中的通配符会被转义
+     */
+    public static String prefixPattern(String prefix) {
+        StringBuilder pattern = new StringBuilder(prefix.length() + 1);
+        for (char c : prefix.toCharArray()) {
+            if (GLOB_SPECIAL_CHARS.indexOf(c) >= 0) {
+                pattern.append('\\');
+            }
+            pattern.append(c);
+        }
+        return pattern.append('*').toString();
+    }
+}
@@ -0,0 +1,218 @@
+package com.muzhou.commons.cache.core.cache.support;
+
+import io.micrometer.core.instrument.util.NamedThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Redis 读合并
+ * <p>
+ * 并发的单 key GET 先进入队列，派发线程在第一个请求到达后最多等待一个合并窗口，
+ * 或凑满 maxBatch 个请求后，将这一批 key 去重后以一次 MGET 发送，再把结果分发给各调用方。
+ * 派发线程只负责收集，MGET 在独立线程池执行，不会因一次慢请求阻塞后续批次的收集。
+ */
+@Slf4j
+public class RedisReadCoalescer implements AutoCloseable {
+
+    private static final int FETCH_THREADS = 4;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final long timeoutNanos;
+
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final Thread dispatcher;
+    private final ExecutorService fetchExecutor;
+    private volatile boolean running = true;
+
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder keyCount = new LongAdder();
+
+    /**
+     * @param timeoutNanos 同步读取等待所在批次结果的最长时间
+     */
+    public RedisReadCoalescer(RedisTemplate<String, Object> redisTemplate, long windowNanos, int maxBatch,
+                              long timeoutNanos) {
+        this.redisTemplate = redisTemplate;
+        this.windowNanos = windowNanos;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.timeoutNanos = timeoutNanos;
+        this.fetchExecutor = Executors.newFixedThreadPool(FETCH_THREADS, new NamedThreadFactory("cache-coalesce-fetch-"));
+        this.dispatcher = new NamedThreadFactory("cache-coalesce-").newThread(this::dispatchLoop);
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * 提交一次读取，结果随所在批次的 MGET 返回
+     */
+    public CompletableFuture<Object> submit(String key) {
+        Request request = new Request(key);
+        if (!running) {
+            request.future.completeExceptionally(new IllegalStateException("Read coalescer closed"));
+            return request.future;
+        }
+        queue.offer(request);
+        // 与 close 并发时，close 可能已经清空过队列，派发线程也已退出，由提交方自己移除并失败
+        if (!running && queue.remove(request)) {
+            request.future.completeExceptionally(new IllegalStateException("Read coalescer closed"));
+        }
+        return request.future;
+    }
+
+    /**
+     * 同步读取，等价于 opsForValue().get(key)，最多等待 timeout
+     *
+     * @throws QueryTimeoutException 超时未取得结果
+     */
+    public Object get(String key) {
+        CompletableFuture<Object> future = submit(key);
+        try {
+            return future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw new QueryTimeoutException("Coalesced read timed out, key: " + key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisSystemException("Coalesced read interrupted, key: " + key, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException
+                    ? (RuntimeException) cause
+                    : new RedisSystemException("Coalesced read failed, key: " + key, cause);
+        }
+    }
+
+    private void dispatchLoop() {
+        List<Request> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatch) {
+                    // 先取走已排队的请求，不够再在窗口内等待
+                    if (queue.drainTo(batch, maxBatch - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    Request next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                List<Request> toFetch = new ArrayList<>(batch);
+                fetchExecutor.execute(() -> fetch(toFetch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failAll(batch);
+                break;
+            } catch (RejectedExecutionException e) {
+                // 已关闭
+                failAll(batch);
+            } finally {
+                batch.clear();
+            }
+        }
+        failQueued();
+    }
+
+    /**
+     * 失败所有仍在队列中的请求，只在 running 置为 false 之后调用
+     */
+    private void failQueued() {
+        List<Request> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        failAll(pending);
+    }
+
+    private void failAll(List<Request> requests) {
+        IllegalStateException closed = new IllegalStateException("Read coalescer closed");
+        requests.forEach(request -> request.future.completeExceptionally(closed));
+    }
+
+    private void fetch(List<Request> batch) {
+        Map<String, List<Request>> requestsByKey = new LinkedHashMap<>(batch.size());
+        for (Request request : batch) {
+            requestsByKey.computeIfAbsent(request.key, k -> new ArrayList<>(1)).add(request);
+        }
+        List<String> keys = new ArrayList<>(requestsByKey.keySet());
+
+        batchCount.increment();
+        keyCount.add(keys.size());
+
+        try {
+            List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+            for (int i = 0; i < keys.size(); i++) {
+                Object value = values != null ? values.get(i) : null;
+                for (Request request : requestsByKey.get(keys.get(i))) {
+                    request.future.complete(value);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("[Cache] Coalesced MGET failed, keys: {}, error: {}", keys.size(), e.getMessage());
+            batch.forEach(request -> request.future.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * 已发送的 MGET 次数
+     */
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    /**
+     * 已发送的 key 数量（批内去重后）
+     */
+    public long getKeyCount() {
+        return keyCount.sum();
+    }
+
+    /**
+     * 平均每次 MGET 包含的 key 数量
+     */
+    public double getAverageBatchSize() {
+        long batches = batchCount.sum();
+        return batches == 0 ? 0 : (double) keyCount.sum() / batches;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        dispatcher.interrupt();
+        fetchExecutor.shutdown();
+        failQueued();
+    }
+
+    private static final class Request {
+        private final String key;
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        private Request(String key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.muzhou.commons.cache.core.cache.support;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * 本地缓存的提前刷新加载器
+ * <p>
+ * 本地缓存项超过 refreshAfterWrite 后，读取方仍然拿到旧值，同时由该加载器在独立的有界线程池中
+ * 从 Redis 重新读取一次；同一 key 同一时刻只会有一个刷新任务。
+ * Redis 中已不存在（已过期）时在同一个刷新任务中交给 missLoader 从数据源重新加载，刷新期间读取方继续拿到旧值，
+ * 不会在 Redis 过期时刻阻塞在加载锁和数据源上；missLoader 也无法加载时返回 null，本地缓存项随之移除。
+ * Redis 不可用（熔断）时不发起读取，保留旧值。
+ */
+public class RedisRefreshLoader implements CacheLoader<Object, Object> {
+
+    private final Function<String, Object> redisReader;
+    private final BiFunction<String, Object, Object> missLoader;
+    private final Executor refreshExecutor;
+    private final BooleanSupplier redisAvailable;
+
+    /**
+     * @param redisReader     读取 Redis 中的值
+     * @param missLoader      Redis 中不存在时按 (key, 旧值) 从数据源重新加载并写回 Redis，返回新值；
+     *                        返回 null 时移除本地缓存项
+     * @param refreshExecutor 刷新任务线程池，队列满时本次刷新放弃，保留旧值到下一个刷新周期
+     * @param redisAvailable  Redis 当前是否可用
+     */
+    public RedisRefreshLoader(Function<String, Object> redisReader, BiFunction<String, Object, Object> missLoader,
+                              Executor refreshExecutor, BooleanSupplier redisAvailable) {
+        this.redisReader = redisReader;
+        this.missLoader = missLoader;
+        this.refreshExecutor = refreshExecutor;
+        this.redisAvailable = redisAvailable;
+    }
+
+    @Override
+    public Object load(Object key) {
+        return redisReader.apply((String) key);
+    }
+
+    @Override
+    public CompletableFuture<Object> asyncReload(Object key, Object oldValue, Executor executor) {
+        if (!redisAvailable.getAsBoolean()) {
+            return CompletableFuture.completedFuture(oldValue);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                Object value = redisReader.apply((String) key);
+                return value != null ? value : missLoader.apply((String) key, oldValue);
+            }, refreshExecutor);
+        } catch (RejectedExecutionException e) {
+            // 拒绝策略在提交线程（读取方）上同步抛出，不能传给 Caffeine
+            return CompletableFuture.completedFuture(oldValue);
+        }
+    }
+}
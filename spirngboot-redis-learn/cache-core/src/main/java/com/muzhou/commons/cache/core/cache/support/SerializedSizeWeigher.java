@@ -0,0 +1,40 @@
+package com.muzhou.commons.cache.core.cache.support;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.muzhou.commons.cache.core.codec.CodecRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * 按序列化后的字节数计算权重
+ * <p>
+ * 使用与 Redis 相同的序列化器（例如 {@code CodecRedisSerializer}），权重与 Redis 中的占用一致，
+ * 代价是每次写入本地缓存都要多序列化一次。序列化失败时退化为估算值。
+ * <p>
+ * 本地缓存保存的是未压缩的对象，使用 {@link CodecRedisSerializer} 时按未压缩的编码大小计算，不执行压缩，
+ * 否则压缩率高的大对象权重偏小，本地缓存实际占用会远超 maximumWeight。
+ */
+public class SerializedSizeWeigher implements Weigher<Object, Object> {
+
+    private final RedisSerializer<Object> serializer;
+    private final EstimatedSizeWeigher fallback = new EstimatedSizeWeigher();
+
+    public SerializedSizeWeigher(RedisSerializer<Object> serializer) {
+        this.serializer = serializer;
+    }
+
+    @Override
+    public int weigh(Object key, Object value) {
+        try {
+            int valueSize;
+            if (serializer instanceof CodecRedisSerializer) {
+                valueSize = ((CodecRedisSerializer) serializer).uncompressedSize(value);
+            } else {
+                byte[] bytes = serializer.serialize(value);
+                valueSize = bytes != null ? bytes.length : 0;
+            }
+            return 2 * key.toString().length() + valueSize;
+        } catch (Exception e) {
+            return fallback.weigh(key, value);
+        }
+    }
+}
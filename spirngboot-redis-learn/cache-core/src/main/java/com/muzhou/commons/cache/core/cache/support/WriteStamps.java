@@ -0,0 +1,61 @@
+package com.muzhou.commons.cache.core.cache.support;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * 本地缓存条目的写入记录，开启堆外缓存时使用
+ * <p>
+ * 本地缓存写入时（由 {@link NullAwareExpiry} 计算过期时间时）记录写入的值和本地过期时间。
+ * 条目因容量被淘汰后，只有记录仍属于被淘汰的值才转存堆外，并沿用记录的过期时间：
+ * 记录已被失效操作清除，或已被同一 key 的新值替换，说明淘汰的值已过时。
+ * 转存在记录的锁内执行，失效操作先清除记录再清除堆外，两者不会交错出被失效的值重新出现在堆外的情况。
+ */
+public class WriteStamps {
+
+    private final ConcurrentHashMap<Object, Stamp> stamps = new ConcurrentHashMap<>();
+
+    public void record(Object key, Object value, long ttlNanos) {
+        long expireAt = System.currentTimeMillis() + TimeUnit.NANOSECONDS.toMillis(ttlNanos);
+        stamps.put(key, new Stamp(value, expireAt));
+    }
+
+    /**
+     * 条目移出本地缓存时清除其记录；记录仍属于该值时，在记录的锁内以记录的过期时间（毫秒）执行 action
+     *
+     * @param action 可以为空
+     */
+    public void remove(Object key, Object value, LongConsumer action) {
+        stamps.computeIfPresent(key, (k, stamp) -> {
+            if (stamp.value != value) {
+                return stamp;
+            }
+            if (action != null) {
+                action.accept(stamp.expireAt);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 失效 key：此后完成的淘汰不再转存堆外
+     */
+    public void invalidate(Object key) {
+        stamps.remove(key);
+    }
+
+    public void clear() {
+        stamps.clear();
+    }
+
+    private static final class Stamp {
+        private final Object value;
+        private final long expireAt;
+
+        private Stamp(Object value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.muzhou.commons.cache.core.codec;
+
+import com.muzhou.commons.cache.autoconfigure.properties.CacheProperties;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 基于 {@link ValueCodec} 的 RedisSerializer，可直接设置为 RedisTemplate 的 valueSerializer
+ * <p>
+ * 写入格式：magic(1) + 格式版本(1) + 编码器标识(1) + 标志位(1) + 编码内容。
+ * 编码结果达到压缩阈值时使用 Deflater 压缩，压缩后更小才采用并置位标志。
+ * <p>
+ * 读取时按头部中的编码器标识解码；没有头部的数据交给旧的序列化器，
+ * 切换序列化器前写入的数据可以继续读取，随过期逐步替换为新格式。
+ */
+public class CodecRedisSerializer implements RedisSerializer<Object> {
+
+    static final byte MAGIC = (byte) 0xC7;
+    static final byte FORMAT_VERSION = 1;
+    static final int HEADER_LENGTH = 4;
+
+    private static final byte FLAG_DEFLATE = 0x01;
+    private static final byte[] EMPTY = new byte[0];
+
+    private final ValueCodec codec;
+    private final Map<Byte, ValueCodec> codecs = new HashMap<>();
+    private final RedisSerializer<Object> legacySerializer;
+    private final int compressThreshold;
+
+    /**
+     * @param codec             写入使用的编码器
+     * @param legacySerializer  读取无头部旧数据的序列化器，可为空
+     * @param compressThreshold 编码结果达到该字节数时压缩，小于等于 0 不压缩
+     * @param decodeOnly        只用于读取的编码器，用于切换编码器期间读取其他编码器写入的数据
+     */
+    public CodecRedisSerializer(ValueCodec codec, RedisSerializer<Object> legacySerializer,
+                                int compressThreshold, ValueCodec... decodeOnly) {
+        this.codec = codec;
+        this.legacySerializer = legacySerializer;
+        this.compressThreshold = compressThreshold;
+        for (ValueCodec other : decodeOnly) {
+            codecs.put(other.getId(), other);
+        }
+        codecs.put(codec.getId(), codec);
+    }
+
+    /**
+     * 按 commons.cache.codec 配置构建
+     *
+     * @param properties 编码配置，压缩阈值取 compressThreshold
+     */
+    public CodecRedisSerializer(ValueCodec codec, RedisSerializer<Object> legacySerializer,
+                                CacheProperties.Codec properties, ValueCodec... decodeOnly) {
+        this(codec, legacySerializer,
+                (int) Math.min(properties.getCompressThreshold().toBytes(), Integer.MAX_VALUE), decodeOnly);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return EMPTY;
+        }
+
+        byte[] payload;
+        try {
+            payload = codec.encode(value);
+        } catch (Exception e) {
+            throw new SerializationException("Encode value failed, codec: " + codec.getId(), e);
+        }
+
+        byte flags = 0;
+        if (compressThreshold > 0 && payload.length >= compressThreshold) {
+            byte[] compressed = deflate(payload);
+            if (compressed.length < payload.length) {
+                payload = compressed;
+                flags |= FLAG_DEFLATE;
+            }
+        }
+
+        byte[] bytes = new byte[HEADER_LENGTH + payload.length];
+        bytes[0] = MAGIC;
+        bytes[1] = FORMAT_VERSION;
+        bytes[2] = codec.getId();
+        bytes[3] = flags;
+        System.arraycopy(payload, 0, bytes, HEADER_LENGTH, payload.length);
+        return bytes;
+    }
+
+    /**
+     * 不压缩时序列化结果的字节数，即值本身的编码大小，只编码不压缩
+     */
+    public int uncompressedSize(Object value) throws SerializationException {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return HEADER_LENGTH + codec.encode(value).length;
+        } catch (Exception e) {
+            throw new SerializationException("Encode value failed, codec: " + codec.getId(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+
+        ValueCodec decoder = hasHeader(bytes) ? codecs.get(bytes[2]) : null;
+        if (decoder == null) {
+            if (legacySerializer == null) {
+                throw new SerializationException("Unknown value format and no legacy serializer");
+            }
+            return legacySerializer.deserialize(bytes);
+        }
+
+        byte[] payload = new byte[bytes.length - HEADER_LENGTH];
+        System.arraycopy(bytes, HEADER_LENGTH, payload, 0, payload.length);
+        if ((bytes[3] & FLAG_DEFLATE) != 0) {
+            payload = inflate(payload);
+        }
+        try {
+            return decoder.decode(payload);
+        } catch (Exception e) {
+            throw new SerializationException("Decode value failed, codec: " + decoder.getId(), e);
+        }
+    }
+
+    private static boolean hasHeader(byte[] bytes) {
+        return bytes.length >= HEADER_LENGTH && bytes[0] == MAGIC && bytes[1] == FORMAT_VERSION;
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream(input.length / 2);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                output.write(buffer, 0, length);
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] input) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            ByteArrayOutputStream output = new ByteArrayOutputStream(input.length * 3);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new SerializationException("Truncated compressed value");
+                }
+                output.write(buffer, 0, length);
+            }
+            return output.toByteArray();
+        } catch (DataFormatException e) {
+            throw new SerializationException("Inflate value failed", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.muzhou.commons.cache.core.codec;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.Registration;
+import com.esotericsoftware.kryo.SerializerFactory;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.util.DefaultClassResolver;
+import com.esotericsoftware.kryo.util.DefaultInstantiatorStrategy;
+import com.esotericsoftware.kryo.util.MapReferenceResolver;
+import com.esotericsoftware.kryo.util.Pool;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 基于 Kryo 的紧凑二进制编码
+ * <p>
+ * 对象默认使用 CompatibleFieldSerializer，按字段名读写并分块编码：滚动发布期间新旧版本的类增删字段后仍可互相读取，
+ * 多出的字段跳过，缺少的字段保持默认值（字段改类型不兼容）。
+ * <p>
+ * 不要求预先注册类型，首次出现的类型按类名写入，但只允许白名单包下的类：JDK 的 java.lang、java.math、java.time、java.util
+ * 和本组件的包始终允许，业务值的包需要通过 commons.cache.codec.allowed-packages 配置。
+ * 读取时类名不在白名单中直接失败，不会实例化 Redis 中任意指定的类。对象无需实现 Serializable，也无需无参构造。
+ * Kryo 实例非线程安全，通过对象池复用。
+ */
+public class KryoValueCodec implements ValueCodec {
+
+    public static final byte ID = 1;
+
+    private static final int INITIAL_BUFFER_SIZE = 256;
+    private static final int POOL_SIZE = 64;
+
+    private static final List<String> BUILT_IN_PACKAGES = Collections.unmodifiableList(Arrays.asList(
+            "java.lang.", "java.math.", "java.time.", "java.util.",
+            "org.springframework.cache.support.", "com.muzhou.commons.cache.core."));
+
+    /**
+     * 按反射构造或调用任意对象的包，即使前缀在白名单中也不允许
+     */
+    private static final List<String> DENIED_PACKAGES = Collections.unmodifiableList(Arrays.asList(
+            "java.lang.reflect.", "java.lang.invoke."));
+
+    private final List<String> allowedPackages;
+
+    private final Pool<Kryo> kryoPool = new Pool<Kryo>(true, false, POOL_SIZE) {
+        @Override
+        protected Kryo create() {
+            Kryo kryo = new Kryo(new AllowListClassResolver(), new MapReferenceResolver());
+            kryo.setRegistrationRequired(false);
+            kryo.setReferences(true);
+            kryo.setInstantiatorStrategy(new DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+            SerializerFactory.CompatibleFieldSerializerFactory serializerFactory =
+                    new SerializerFactory.CompatibleFieldSerializerFactory();
+            // 分块编码：读取方不认识的字段（类已删除该字段）可以整块跳过
+            serializerFactory.getConfig().setChunkedEncoding(true);
+            kryo.setDefaultSerializer(serializerFactory);
+            return kryo;
+        }
+    };
+
+    /**
+     * 只允许内置的包
+     */
+    public KryoValueCodec() {
+        this(Collections.emptyList());
+    }
+
+    /**
+     * @param allowedPackages 额外允许的包前缀，例如 com.example.order.
+     */
+    public KryoValueCodec(Collection<String> allowedPackages) {
+        List<String> packages = new ArrayList<>(BUILT_IN_PACKAGES);
+        packages.addAll(allowedPackages);
+        this.allowedPackages = packages;
+    }
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        Kryo kryo = kryoPool.obtain();
+        try (Output output = new Output(INITIAL_BUFFER_SIZE, -1)) {
+            kryo.writeClassAndObject(output, value);
+            return output.toBytes();
+        } finally {
+            kryoPool.free(kryo);
+        }
+    }
+
+    @Override
+    public Object decode(byte[] bytes) {
+        Kryo kryo = kryoPool.obtain();
+        try (Input input = new Input(bytes)) {
+            return kryo.readClassAndObject(input);
+        } finally {
+            kryoPool.free(kryo);
+        }
+    }
+
+    private boolean isAllowed(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive()) {
+            return true;
+        }
+        String name = type.getName();
+        for (String denied : DENIED_PACKAGES) {
+            if (name.startsWith(denied)) {
+                return false;
+            }
+        }
+        for (String allowed : allowedPackages) {
+            if (name.startsWith(allowed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 未注册的类型首次出现时（写入和按类名读取）检查白名单。按类名读取时类只加载不初始化，检查在初始化之前
+     */
+    private class AllowListClassResolver extends DefaultClassResolver {
+
+        @Override
+        public Registration registerImplicit(Class type) {
+            if (!isAllowed(type)) {
+                throw new KryoException("Class is not allowed by the codec allowlist, "
+                        + "add its package to commons.cache.codec.allowed-packages: " + type.getName());
+            }
+            return super.registerImplicit(type);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.muzhou.commons.cache.core.codec;
+
+/**
+ * 缓存值编解码 SPI
+ * <p>
+ * 编码结果由 {@link CodecRedisSerializer} 加上头部后写入 Redis，头部记录编码器标识，
+ * 读取时按标识选择编码器，因此新旧编码器可以并存，逐步切换。
+ */
+public interface ValueCodec {
+
+    /**
+     * 编码器标识，写入头部，取值 1~127。已经写入过 Redis 的标识不能再分配给其他编码器
+     */
+    byte getId();
+
+    byte[] encode(Object value);
+
+    Object decode(byte[] bytes);
+}
@@ -18,4 +18,12 @@ public interface HotKeyListener {
      * @param removedKeys 移除关键词集合（空集表示无移除）
      */
     void onHotKeyChanged(Set<String> addedKeys, Set<String> removedKeys);
+
+    /**
+     * 定时预加载时触发，集群内同一轮只有抢到预加载锁的节点收到。
+     * @param hotKeys       当前热点关键词集合
+     * @param deadlineNanos 本轮截止时间（System.nanoTime），预加载锁在此之后不久过期，需在此之前返回
+     */
+    default void onPreload(Set<String> hotKeys, long deadlineNanos) {
+    }
 }
\ No newline at end of file
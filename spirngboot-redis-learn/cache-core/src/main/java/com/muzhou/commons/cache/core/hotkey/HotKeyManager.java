@@ -1,20 +1,45 @@
 package com.muzhou.commons.cache.core.hotkey;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 
 public interface HotKeyManager {
 
     /**
-     * 访问记录
+     * 访问记录，不应阻塞调用方
      */
     void recordAccess(String key);
 
+    /**
+     * 因处理不及时被丢弃的访问记录数
+     */
+    default long getDroppedAccessCount() {
+        return 0;
+    }
+
     boolean isHotKey(String key);
 
     void addHotKey(String key, long ttlSeconds);
 
     Set<String> getHotKeys();
 
+    /**
+     * 当前热点及其最近一次分析时的访问计数，计数未知（例如来自其他节点）时为 0
+     */
+    default Map<String, Long> getHotKeyScores() {
+        Map<String, Long> scores = new LinkedHashMap<>();
+        for (String key : getHotKeys()) {
+            scores.put(key, 0L);
+        }
+        return scores;
+    }
+
+    /**
+     * 批量恢复热点（例如重启时从快照恢复），与本节点已有的热点合并
+     */
+    void loadHotKeys(Set<String> keys);
+
     void addListener(HotKeyListener listener);
 
     void removeListener(HotKeyListener listener);
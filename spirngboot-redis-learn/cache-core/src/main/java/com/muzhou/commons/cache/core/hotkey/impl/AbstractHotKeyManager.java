@@ -0,0 +1,430 @@
+package com.muzhou.commons.cache.core.hotkey.impl;
+
+import com.muzhou.commons.cache.autoconfigure.properties.HotKeyProperties;
+import com.muzhou.commons.cache.core.bus.BatchPublisher;
+import com.muzhou.commons.cache.core.bus.KeyEventBatch;
+import com.muzhou.commons.cache.core.bus.MessageBus;
+import com.muzhou.commons.cache.core.hotkey.HotKeyHolder;
+import com.muzhou.commons.cache.core.hotkey.HotKeyListener;
+import com.muzhou.commons.cache.core.hotkey.HotKeyManager;
+import com.muzhou.commons.cache.core.hotkey.support.AccessQueue;
+import io.micrometer.core.instrument.util.NamedThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 热点Key管理器公共实现：热点集合持有、监听器管理、变更通知以及集群广播
+ * <p>
+ * 热点集合 = 本节点检测出的热点 ∪ 其他节点广播过来且未过期的热点。
+ */
+@Slf4j
+public abstract class AbstractHotKeyManager implements HotKeyManager {
+
+    private static final String HOT_KEY_EVENT_TOPIC = "multilevel:hotkey:events";
+    private static final char OP_ADD = '+';
+    private static final char OP_REMOVE = '-';
+
+    /**
+     * 消费线程每轮最多处理的访问记录数
+     */
+    private static final int DRAIN_BATCH_SIZE = 1024;
+
+    /**
+     * 队列为空时消费线程按指数退避休眠，从最短时间开始每次翻倍，有新记录后重置
+     */
+    private static final long DRAIN_MIN_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+    private static final long DRAIN_MAX_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * 退避到上限后仍然空闲时改为等待生产者唤醒，超时兜底唤醒丢失的情况
+     */
+    private static final long DRAIN_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * 停机时等待消费线程处理完剩余记录的最长时间
+     */
+    private static final long DRAIN_STOP_TIMEOUT_MILLIS = 1000;
+
+    protected final HotKeyProperties properties;
+    protected final HotKeyHolder hotKeyHolder;
+    protected final AtomicBoolean running = new AtomicBoolean(true);
+    private final List<HotKeyListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 本节点检测出的热点
+     */
+    private final Set<String> localHotKeys = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 其他节点广播的热点，key -> 过期时间戳
+     */
+    private final Map<String, Long> remoteHotKeys = new ConcurrentHashMap<>();
+
+    /**
+     * 最近一次分析时候选 key 的访问计数
+     */
+    private volatile Map<String, Long> lastScores = Collections.emptyMap();
+
+    /**
+     * 访问记录先进入有界无锁队列，由后台线程交给 {@link #doRecordAccess} 统计，调用方只付出一次入队的开销
+     */
+    private final AccessQueue accessQueue;
+    private volatile Thread accessDrainer;
+
+    /**
+     * 消费线程是否在等待唤醒，生产者入队后看到为 true 时唤醒消费线程
+     */
+    private volatile boolean drainerParked;
+
+    private volatile MessageBus messageBus;
+    private volatile BatchPublisher publisher;
+    private ScheduledExecutorService broadcastScheduler;
+
+    protected AbstractHotKeyManager(HotKeyProperties properties) {
+        this.properties = properties;
+        this.hotKeyHolder = new DefaultHotKeyHolder();
+        this.accessQueue = new AccessQueue(properties.getAccessQueueCapacity());
+    }
+
+    /**
+     * 启动访问记录消费线程，子类在统计结构初始化完成后调用
+     */
+    protected void startAccessDrainer() {
+        Thread drainer = new Thread(this::drainAccesses, "hotkey-access-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+        this.accessDrainer = drainer;
+    }
+
+    /**
+     * 入队后立即返回，队列满时丢弃本次记录。热点统计本身是近似的，丢弃少量记录不影响结果
+     */
+    @Override
+    public void recordAccess(String key) {
+        if (!running.get() || key == null || key.isEmpty()) {
+            return;
+        }
+        if (accessQueue.offer(key) && drainerParked) {
+            drainerParked = false;
+            LockSupport.unpark(accessDrainer);
+        }
+    }
+
+    /**
+     * 在消费线程中统计一次访问
+     */
+    protected abstract void doRecordAccess(String key);
+
+    @Override
+    public long getDroppedAccessCount() {
+        return accessQueue.getDroppedCount();
+    }
+
+    private void drainAccesses() {
+        long backoffNanos = DRAIN_MIN_BACKOFF_NANOS;
+        while (running.get()) {
+            if (accessQueue.drain(this::recordAccessSafely, DRAIN_BATCH_SIZE) > 0) {
+                backoffNanos = DRAIN_MIN_BACKOFF_NANOS;
+            } else if (backoffNanos < DRAIN_MAX_BACKOFF_NANOS) {
+                LockSupport.parkNanos(backoffNanos);
+                backoffNanos <<= 1;
+            } else {
+                // 先登记再检查队列，检查之后入队的生产者会看到登记并唤醒；极少数唤醒丢失的情况由等待超时兜底
+                drainerParked = true;
+                if (accessQueue.size() == 0 && running.get()) {
+                    LockSupport.parkNanos(DRAIN_PARK_NANOS);
+                }
+                drainerParked = false;
+            }
+        }
+        // 停机前处理完剩余记录
+        accessQueue.drain(this::recordAccessSafely, accessQueue.capacity());
+    }
+
+    private void recordAccessSafely(String key) {
+        try {
+            doRecordAccess(key);
+        } catch (Exception e) {
+            log.warn("[HotKey] Record access failed, key: {}, error: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * 开启集群广播（可选）：本节点检测到的热点增删会批量发布到总线，
+     * 其他节点发布的变更会并入本地热点集合并通知监听器
+     */
+    public synchronized void setMessageBus(MessageBus messageBus) {
+        if (this.messageBus != null || messageBus == null) {
+            return;
+        }
+
+        this.messageBus = messageBus;
+        this.broadcastScheduler = Executors.newSingleThreadScheduledExecutor(
+                new NamedThreadFactory("hotkey-broadcast-"));
+        this.publisher = new BatchPublisher(messageBus,
+                HOT_KEY_EVENT_TOPIC,
+                properties.getBroadcastInterval(),
+                properties.getTopN(),
+                broadcastScheduler);
+
+        messageBus.subscribe(HOT_KEY_EVENT_TOPIC, this::onRemoteEvent);
+
+        // 远端热点带有效期，发布方每半个有效期重新广播一次本地热点，节点下线后其热点自然过期
+        long holdTime = properties.getBroadcastHoldTime();
+        broadcastScheduler.scheduleWithFixedDelay(this::reannounce, holdTime / 2, holdTime / 2, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean isHotKey(String key) {
+        return hotKeyHolder.isHotKey(key);
+    }
+
+    @Override
+    public Set<String> getHotKeys() {
+        return hotKeyHolder.getHotKeys();
+    }
+
+    @Override
+    public Map<String, Long> getHotKeyScores() {
+        Map<String, Long> scores = lastScores;
+        List<Map.Entry<String, Long>> entries = new ArrayList<>();
+        for (String key : getHotKeys()) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(key, scores.getOrDefault(key, 0L)));
+        }
+        entries.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+
+        Map<String, Long> result = new LinkedHashMap<>(entries.size() * 2);
+        entries.forEach(entry -> result.put(entry.getKey(), entry.getValue()));
+        return result;
+    }
+
+    /**
+     * 记录本次分析的候选计数，供 {@link #getHotKeyScores()} 展示
+     */
+    protected void recordScores(Map<String, Long> scores) {
+        this.lastScores = scores;
+    }
+
+    @Override
+    public synchronized void loadHotKeys(Set<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        Set<String> merged = new HashSet<>(localHotKeys);
+        merged.addAll(keys);
+        applyHotKeys(merged);
+    }
+
+    /**
+     * 本节点检测出的热点，不含其他节点广播的热点
+     */
+    protected Set<String> getLocalHotKeys() {
+        return new HashSet<>(localHotKeys);
+    }
+
+    /**
+     * 用新的本地检测结果替换本地热点，广播差异，并将热点集合的变化通知监听器
+     */
+    protected synchronized void applyHotKeys(Set<String> newHotKeys) {
+        Set<String> addedKeys = new HashSet<>(newHotKeys);
+        addedKeys.removeAll(localHotKeys);
+
+        Set<String> removedKeys = new HashSet<>(localHotKeys);
+        removedKeys.removeAll(newHotKeys);
+
+        localHotKeys.removeAll(removedKeys);
+        localHotKeys.addAll(addedKeys);
+
+        broadcast(addedKeys, removedKeys);
+        rebuildHotKeys();
+
+        if (properties.isDebug()) {
+            log.debug("[HotKey] Hot key analysis result - Total: {}, Added: {}, Removed: {}",
+                    newHotKeys.size(), addedKeys, removedKeys);
+        }
+    }
+
+    /**
+     * 本地新增单个热点
+     *
+     * @return 是否为新的热点
+     */
+    protected synchronized boolean addLocalHotKey(String key) {
+        if (!localHotKeys.add(key)) {
+            return false;
+        }
+
+        broadcast(Collections.singleton(key), Collections.emptySet());
+        if (!hotKeyHolder.addHotKey(key)) {
+            return false;
+        }
+
+        notifyHotKeyAdded(key);
+        return true;
+    }
+
+    private void broadcast(Set<String> addedKeys, Set<String> removedKeys) {
+        BatchPublisher batchPublisher = this.publisher;
+        if (batchPublisher == null) {
+            return;
+        }
+        for (String key : addedKeys) {
+            batchPublisher.offer(key, OP_ADD);
+        }
+        for (String key : removedKeys) {
+            batchPublisher.offer(key, OP_REMOVE);
+        }
+    }
+
+    private void reannounce() {
+        if (!running.get()) {
+            return;
+        }
+        for (String key : localHotKeys) {
+            publisher.offer(key, OP_ADD);
+        }
+        synchronized (this) {
+            rebuildHotKeys();
+        }
+    }
+
+    private void onRemoteEvent(String message) {
+        KeyEventBatch batch = KeyEventBatch.decode(message);
+        // 忽略自己发出的消息
+        if (!running.get() || messageBus.getNodeId().equals(batch.getNodeId())) {
+            return;
+        }
+
+        long expireAt = System.currentTimeMillis() + properties.getBroadcastHoldTime();
+        synchronized (this) {
+            for (Map.Entry<String, Character> event : batch.getEvents().entrySet()) {
+                if (event.getValue() == OP_ADD) {
+                    remoteHotKeys.put(event.getKey(), expireAt);
+                } else if (event.getValue() == OP_REMOVE) {
+                    remoteHotKeys.remove(event.getKey());
+                }
+            }
+            rebuildHotKeys();
+        }
+    }
+
+    /**
+     * 合并本地与远端热点，刷新持有器并通知监听器，调用方需持有当前对象锁
+     */
+    private void rebuildHotKeys() {
+        Set<String> merged = new HashSet<>(localHotKeys);
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<String, Long>> iterator = remoteHotKeys.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            if (entry.getValue() < now) {
+                iterator.remove();
+            } else {
+                merged.add(entry.getKey());
+            }
+        }
+
+        // 先取旧集合再刷新，否则差异永远为空
+        Set<String> oldHotKeys = hotKeyHolder.getHotKeys();
+        hotKeyHolder.refreshHotKeys(merged);
+
+        Set<String> addedKeys = new HashSet<>(merged);
+        addedKeys.removeAll(oldHotKeys);
+
+        Set<String> removedKeys = new HashSet<>(oldHotKeys);
+        removedKeys.removeAll(merged);
+
+        notifyHotKeyChanged(addedKeys, removedKeys);
+    }
+
+    protected void notifyHotKeyAdded(String key) {
+        for (HotKeyListener listener : listeners) {
+            try {
+                listener.onHotKeyAdded(key);
+            } catch (Exception e) {
+                log.error("[HotKey] Notify hot key added failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    protected void notifyHotKeyChanged(Set<String> addedKeys, Set<String> removedKeys) {
+        if ((addedKeys == null || addedKeys.isEmpty()) &&
+                (removedKeys == null || removedKeys.isEmpty())) {
+            return;
+        }
+
+        for (HotKeyListener listener : listeners) {
+            try {
+                listener.onHotKeyChanged(addedKeys, removedKeys);
+            } catch (Exception e) {
+                log.error("[HotKey] Notify hot key changed failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    protected void notifyPreload(Set<String> hotKeys, long deadlineNanos) {
+        for (HotKeyListener listener : listeners) {
+            if (System.nanoTime() >= deadlineNanos) {
+                log.warn("[HotKey] Preload round timed out, skip remaining listeners");
+                return;
+            }
+            try {
+                listener.onPreload(hotKeys, deadlineNanos);
+            } catch (Exception e) {
+                log.error("[HotKey] Notify preload failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void addListener(HotKeyListener listener) {
+        if (listener != null) {
+            listeners.add(listener);
+        }
+    }
+
+    @Override
+    public void removeListener(HotKeyListener listener) {
+        if (listener != null) {
+            listeners.remove(listener);
+        }
+    }
+
+    /**
+     * 停止广播并清理监听器，子类销毁时调用
+     */
+    protected void shutdown() {
+        running.set(false);
+        Thread drainer = this.accessDrainer;
+        if (drainer != null) {
+            LockSupport.unpark(drainer);
+            try {
+                drainer.join(DRAIN_STOP_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        BatchPublisher batchPublisher = this.publisher;
+        if (batchPublisher != null) {
+            batchPublisher.flush();
+            broadcastScheduler.shutdownNow();
+        }
+        listeners.clear();
+    }
+}
@@ -21,8 +21,9 @@ public class DefaultHotKeyHolder implements HotKeyHolder {
 
     @Override
     public void refreshHotKeys(Set<String> keys) {
-        hotKeys.clear();
+        // 先增后删，刷新过程中仍是热点的 key 始终可见
         hotKeys.addAll(keys);
+        hotKeys.retainAll(keys);
     }
 
     @Override
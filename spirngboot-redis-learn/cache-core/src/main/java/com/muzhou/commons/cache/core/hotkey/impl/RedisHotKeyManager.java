@@ -1,63 +1,106 @@
 package com.muzhou.commons.cache.core.hotkey.impl;
 
 import com.muzhou.commons.cache.autoconfigure.properties.HotKeyProperties;
-import com.muzhou.commons.cache.core.hotkey.HotKeyHolder;
-import com.muzhou.commons.cache.core.hotkey.HotKeyListener;
-import com.muzhou.commons.cache.core.hotkey.HotKeyManager;
+import com.muzhou.commons.cache.core.cache.support.RedisKeyScanner;
+import com.muzhou.commons.cache.core.hotkey.support.AccessCounter;
+import com.muzhou.commons.cache.core.hotkey.support.SlidingWindowCounter;
 import io.micrometer.core.instrument.util.NamedThreadFactory;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
 import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
 import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.stream.Collectors;
 
 /**
  * 基于Redis的热点Key管理器实现
  */
 @Slf4j
-public class RedisHotKeyManager implements HotKeyManager {
+public class RedisHotKeyManager extends AbstractHotKeyManager {
 
     private static final String HOT_KEY_PREFIX = "multilevel:hotkey:";
     private static final String HOT_KEY_STATS_ZSET = "multilevel:hotkey:stats";
     private static final String HOT_KEY_PRELOAD_LOCK = "multilevel:hotkey:preload:lock";
 
+    /**
+     * 只有持有者才能释放预加载锁，锁已过期并被其他节点抢到时不删除
+     */
+    private static final byte[] UNLOCK_SCRIPT = ("if redis.call('get', KEYS[1]) == ARGV[1] then "
+            + "return redis.call('del', KEYS[1]) else return 0 end").getBytes(StandardCharsets.UTF_8);
+    private static final int SCAN_COUNT = 500;
+
+    /**
+     * 停机时等待正在执行的刷入、分析和预加载任务结束的最长时间
+     */
+    private static final long SCHEDULER_STOP_TIMEOUT_MILLIS = 5000;
+
     private final RedisTemplate<String, Object> redisTemplate;
-    private final HotKeyProperties properties;
-    private final HotKeyHolder hotKeyHolder;
     private final ScheduledExecutorService scheduler;
-    private final List<HotKeyListener> listeners = new CopyOnWriteArrayList<>();
-    private final AtomicBoolean running = new AtomicBoolean(true);
+    private final AccessCounter accessCounter;
 
-    private static final int MAX_RETRIES = 3;
+    /**
+     * 热点降级比例：滑动窗口计数跌破 阈值 * 该比例 才移出热点集合，避免在阈值附近反复抖动
+     */
+    private static final double DEMOTE_RATIO = 0.5;
+
+    /**
+     * 滑动窗口计数器，仅 SLIDING 模式下使用
+     */
+    private final SlidingWindowCounter slidingWindowCounter;
 
     public RedisHotKeyManager(RedisTemplate<String, Object> redisTemplate,
                               HotKeyProperties properties) {
+        super(properties);
         this.redisTemplate = redisTemplate;
-        this.properties = properties;
-        this.hotKeyHolder = new DefaultHotKeyHolder();
+        this.accessCounter = new AccessCounter(properties.getMaxTrackedKeys());
+        this.slidingWindowCounter = isSlidingMode()
+                ? new SlidingWindowCounter(bucketCount(), properties.getMaxTrackedKeys())
+                : null;
 
-        this.scheduler = Executors.newScheduledThreadPool(2,
+        this.scheduler = Executors.newScheduledThreadPool(3,
                 new NamedThreadFactory("hotkey-manager-"));
 
         init();
     }
 
     private void init() {
+        startAccessDrainer();
+
         // 初始加载热点key
         loadInitialHotKeys();
 
-        // 定时分析热点 key
-        scheduler.scheduleWithFixedDelay(this::analyzeHotKeys,
-                properties.getInitialDelay(),
-                properties.getAnalyzeInterval(),
-                TimeUnit.SECONDS);
+        if (isSlidingMode()) {
+            // 滑动窗口：每个桶粒度前进一次并重新评估热点
+            scheduler.scheduleAtFixedRate(this::slideWindow,
+                    properties.getSlidingBucketInterval(),
+                    properties.getSlidingBucketInterval(),
+                    TimeUnit.MILLISECONDS);
+        } else {
+            // 定时批量刷入访问计数
+            scheduler.scheduleWithFixedDelay(this::flushAccessCounts,
+                    properties.getFlushInterval(),
+                    properties.getFlushInterval(),
+                    TimeUnit.MILLISECONDS);
+
+            // 定时分析热点 key
+            scheduler.scheduleWithFixedDelay(this::analyzeHotKeys,
+                    properties.getInitialDelay(),
+                    properties.getAnalyzeInterval(),
+                    TimeUnit.SECONDS);
+        }
 
         // 热点 key 预加载
         scheduler.scheduleWithFixedDelay(this::preloadHotKeys,
@@ -66,14 +109,26 @@ public class RedisHotKeyManager implements HotKeyManager {
                 TimeUnit.SECONDS);
     }
 
+    private boolean isSlidingMode() {
+        return properties.getWindowMode() == HotKeyProperties.WindowMode.SLIDING;
+    }
+
+    private int bucketCount() {
+        long buckets = properties.getSlidingWindowLength() / properties.getSlidingBucketInterval();
+        return (int) Math.max(1, buckets);
+    }
+
     private void loadInitialHotKeys() {
         try {
-            Set<String> keys = redisTemplate.keys(HOT_KEY_PREFIX + "*");
-            if (keys != null && !keys.isEmpty()) {
-                Set<String> hotKeys = keys.stream()
-                        .map(key -> key.substring(HOT_KEY_PREFIX.length()))
-                        .collect(Collectors.toSet());
-                hotKeyHolder.refreshHotKeys(hotKeys);
+            // SCAN 分批遍历，避免 KEYS 阻塞 Redis
+            Set<String> hotKeys = new HashSet<>();
+            RedisKeyScanner.scan(redisTemplate, RedisKeyScanner.prefixPattern(HOT_KEY_PREFIX), SCAN_COUNT,
+                    keys -> {
+                        keys.forEach(key -> hotKeys.add(key.substring(HOT_KEY_PREFIX.length())));
+                        return true;
+                    });
+            if (!hotKeys.isEmpty()) {
+                applyHotKeys(hotKeys);
 
                 // 记录日志
                 if (properties.isDebug()) {
@@ -88,48 +143,48 @@ public class RedisHotKeyManager implements HotKeyManager {
 
     /**
      * 访问统计
+     * <p>
+     * 只在本地计数器上自增，不访问 Redis，由 {@link #flushAccessCounts()} 定时批量刷入
      */
     @Override
-    public void recordAccess(String key) {
-        // 参数校验
-        if (!running.get() || key == null || key.isEmpty()) {
+    protected void doRecordAccess(String key) {
+        if (slidingWindowCounter != null) {
+            slidingWindowCounter.increment(key);
+        } else {
+            accessCounter.increment(key);
+        }
+    }
+
+    /**
+     * 将本地访问计数以一次 pipeline 批量 ZINCRBY 刷入 Redis
+     */
+    @SuppressWarnings("unchecked")
+    private void flushAccessCounts() {
+        Map<String, Long> counts = accessCounter.drain();
+        if (counts.isEmpty()) {
             return;
         }
 
-        int retries = 0;
-        while (retries < MAX_RETRIES) {
-            try {
-                // ZSet [member] 访问 Key [score] 访问频次
-                redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
-                    connection.zSetCommands().zIncrBy(HOT_KEY_STATS_ZSET.getBytes(), 1, key.getBytes());
-                    return null;
-                });
-                break;
-            } catch (Exception e) {
-                retries++;
-                if (retries >= MAX_RETRIES) {
-                    // 记录错误日志
-                    System.err.println("[HotKey] Record access failed after " + retries + " retries for key: " + key);
-                    e.printStackTrace();
-
-                    // 考虑添加降级策略，如本地缓存统计
-                } else {
-                    // 短暂休眠后重试
-                    try {
-                        Thread.sleep(100L * retries);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                    }
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        byte[] rawStatsKey = keySerializer.serialize(HOT_KEY_STATS_ZSET);
+
+        try {
+            // ZSet [member] 访问 Key [score] 访问频次
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Map.Entry<String, Long> entry : counts.entrySet()) {
+                    connection.zSetCommands().zIncrBy(rawStatsKey, entry.getValue(),
+                            valueSerializer.serialize(entry.getKey()));
                 }
-            }
+                return null;
+            });
+        } catch (Exception e) {
+            // 刷入失败时把计数放回本地，下个周期一起刷入
+            counts.forEach(accessCounter::add);
+            log.warn("[HotKey] Flush access counts failed, keys: {}, error: {}", counts.size(), e.getMessage());
         }
     }
 
-    @Override
-    public boolean isHotKey(String key) {
-        return hotKeyHolder.isHotKey(key);
-    }
-
     @Override
     public void addHotKey(String key, long ttlSeconds) {
         if (!running.get() || key == null || key.isEmpty()) {
@@ -139,12 +194,9 @@ public class RedisHotKeyManager implements HotKeyManager {
         try {
             String hotKey = HOT_KEY_PREFIX + key;
             redisTemplate.opsForValue().set(hotKey, 1, ttlSeconds, TimeUnit.SECONDS);
-            boolean added = hotKeyHolder.addHotKey(key);
+            boolean added = addLocalHotKey(key);
 
             if (added) {
-                // 通知监听器
-                notifyHotKeyAdded(key);
-
                 if (properties.isDebug()) {
                     System.out.println("[HotKey] New hot key added: " + key);
                 }
@@ -170,34 +222,22 @@ public class RedisHotKeyManager implements HotKeyManager {
 
             if (topKeys != null && !topKeys.isEmpty()) {
                 Set<String> newHotKeys = new HashSet<>();
+                Map<String, Long> scores = new HashMap<>(topKeys.size() * 2);
                 for (ZSetOperations.TypedTuple<Object> tuple : topKeys) {
                     String key = (String) tuple.getValue();
                     Double score = tuple.getScore();
 
+                    if (key != null && score != null) {
+                        scores.put(key, score.longValue());
+                    }
                     if (key != null && score != null && score >= properties.getHotThreshold()) {
                         newHotKeys.add(key);
                     }
                 }
+                recordScores(scores);
 
-                // 更新热点 key 集合
-                hotKeyHolder.refreshHotKeys(newHotKeys);
-
-                // 比较新旧热点key变化，通知监听器
-                Set<String> oldHotKeys = hotKeyHolder.getHotKeys();
-                Set<String> addedKeys = new HashSet<>(newHotKeys);
-                addedKeys.removeAll(oldHotKeys);
-
-                Set<String> removedKeys = new HashSet<>(oldHotKeys);
-                removedKeys.removeAll(newHotKeys);
-
-                notifyHotKeyChanged(addedKeys, removedKeys);
-
-                if (properties.isDebug()) {
-                    log.debug("[HotKey] Hot key analysis result - " +
-                            "Total: " + newHotKeys.size() +
-                            ", Added: " + addedKeys +
-                            ", Removed: " + removedKeys);
-                }
+                // 更新热点 key 集合并通知监听器
+                applyHotKeys(newHotKeys);
             }
         } catch (Exception e) {
             // 记录错误日志
@@ -214,28 +254,76 @@ public class RedisHotKeyManager implements HotKeyManager {
     }
 
     /**
-     * 预加载
+     * 滑动窗口前进一个桶并重新评估热点
+     * <p>
+     * 窗口计数达到阈值立即晋升；已是热点的 key 直到计数跌破降级线才移除，随窗口滑出平滑降级
      */
+    private void slideWindow() {
+        if (!running.get()) {
+            return;
+        }
+
+        try {
+            long threshold = properties.getSlidingHotThreshold();
+            long demoteThreshold = (long) (threshold * DEMOTE_RATIO);
+            Map<String, Long> candidates = slidingWindowCounter.snapshot(Math.max(1, demoteThreshold));
+            slidingWindowCounter.slide();
+            recordScores(candidates);
+
+            Set<String> currentHotKeys = getLocalHotKeys();
+            List<Map.Entry<String, Long>> qualified = new ArrayList<>();
+            for (Map.Entry<String, Long> entry : candidates.entrySet()) {
+                if (entry.getValue() >= threshold || currentHotKeys.contains(entry.getKey())) {
+                    qualified.add(entry);
+                }
+            }
+            qualified.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+
+            Set<String> newHotKeys = new HashSet<>();
+            for (Map.Entry<String, Long> entry : qualified) {
+                if (newHotKeys.size() >= properties.getTopN()) {
+                    break;
+                }
+                newHotKeys.add(entry.getKey());
+            }
+
+            if (!newHotKeys.equals(currentHotKeys)) {
+                applyHotKeys(newHotKeys);
+            }
+        } catch (Exception e) {
+            log.error("[HotKey] Slide window failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 预加载：抢到锁的节点通知各缓存区域，由缓存管理器从数据源重新加载即将过期的热点 key 并推送到所有节点
+     * <p>
+     * 锁的有效期为预加载间隔的一半，整轮预加载限制在有效期的 2/3 以内，锁不会在本轮结束前过期；
+     * 释放时校验持有者，不会误删其他节点的锁
+     */
+    @SuppressWarnings("unchecked")
     private void preloadHotKeys() {
         if (!running.get()) {
             return;
         }
 
         // 获取分布式锁，防止多个实例同时预加载
-        String lockKey = HOT_KEY_PRELOAD_LOCK;
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        byte[] rawLockKey = keySerializer.serialize(HOT_KEY_PRELOAD_LOCK);
+        byte[] token = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+        long lockMillis = TimeUnit.SECONDS.toMillis(Math.max(1, properties.getPreloadInterval() / 2));
         boolean locked = false;
 
         try {
-            // todo:redission
-            locked = redisTemplate.opsForValue().setIfAbsent(
-                    lockKey,
-                    "1",
-                    properties.getPreloadInterval() / 2,
-                    TimeUnit.SECONDS);
+            locked = Boolean.TRUE.equals(redisTemplate.execute((RedisCallback<Boolean>) connection ->
+                    connection.stringCommands().set(rawLockKey, token,
+                            Expiration.milliseconds(lockMillis),
+                            RedisStringCommands.SetOption.ifAbsent())));
 
             if (!locked) {
                 return;
             }
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lockMillis * 2 / 3);
 
             Set<String> hotKeys = hotKeyHolder.getHotKeys();
             if (hotKeys.isEmpty()) {
@@ -246,28 +334,15 @@ public class RedisHotKeyManager implements HotKeyManager {
                 System.out.println("[HotKey] Start preloading hot keys: " + hotKeys.size());
             }
 
-            // 使用并行流提高预加载效率
-            hotKeys.parallelStream().forEach(key -> {
-                try {
-                    // todo:触发缓存加载
-                    Object value = redisTemplate.opsForValue().get(key);
-
-                    if (value == null && properties.isDebug()) {
-                        System.out.println("[HotKey] Preload found null value for key: " + key);
-                    }
-                } catch (Exception e) {
-                    // 记录错误日志
-                    log.error("[HotKey] Preload failed for key: " + key + ", error: " + e.getMessage());
-                }
-            });
-
+            notifyPreload(hotKeys, deadline);
         } catch (Exception e) {
             // 记录错误日志
             System.err.println("[HotKey] Preload hot keys failed: " + e.getMessage());
         } finally {
             if (locked) {
                 try {
-                    redisTemplate.delete(lockKey);
+                    redisTemplate.execute((RedisCallback<Object>) connection -> connection.scriptingCommands()
+                            .eval(UNLOCK_SCRIPT, ReturnType.INTEGER, 1, rawLockKey, token));
                 } catch (Exception e) {
                     // 记录错误日志
                     System.err.println("[HotKey] Release preload lock failed: " + e.getMessage());
@@ -276,56 +351,21 @@ public class RedisHotKeyManager implements HotKeyManager {
         }
     }
 
-    private void notifyHotKeyAdded(String key) {
-        for (HotKeyListener listener : listeners) {
-            try {
-                listener.onHotKeyAdded(key);
-            } catch (Exception e) {
-                // 记录错误日志
-                System.err.println("[HotKey] Notify hot key added failed: " + e.getMessage());
-            }
-        }
-    }
-
-    private void notifyHotKeyChanged(Set<String> addedKeys, Set<String> removedKeys) {
-        if ((addedKeys == null || addedKeys.isEmpty()) &&
-                (removedKeys == null || removedKeys.isEmpty())) {
-            return;
-        }
-
-        for (HotKeyListener listener : listeners) {
-            try {
-                listener.onHotKeyChanged(addedKeys, removedKeys);
-            } catch (Exception e) {
-                // 记录错误日志
-                System.err.println("[HotKey] Notify hot key changed failed: " + e.getMessage());
-            }
-        }
-    }
-
-    @Override
-    public void addListener(HotKeyListener listener) {
-        if (listener != null) {
-            listeners.add(listener);
-        }
-    }
-
-    @Override
-    public void removeListener(HotKeyListener listener) {
-        if (listener != null) {
-            listeners.remove(listener);
-        }
-    }
-
-    @Override
-    public Set<String> getHotKeys() {
-        return hotKeyHolder.getHotKeys();
-    }
-
     @PreDestroy
     public void destroy() {
-        running.set(false);
-        scheduler.shutdownNow();
-        listeners.clear();
+        shutdown();
+        // 不中断正在执行的任务：中断正在刷入的任务会丢失已取出的计数，也可能与下面最后一次刷入并发
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(SCHEDULER_STOP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                log.warn("[HotKey] Scheduled tasks did not finish in {} ms, interrupting", SCHEDULER_STOP_TIMEOUT_MILLIS);
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        // 停机前把最后一个周期的计数刷入
+        flushAccessCounts();
     }
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+package com.muzhou.commons.cache.core.hotkey.impl;
+
+import com.muzhou.commons.cache.autoconfigure.properties.HotKeyProperties;
+import com.muzhou.commons.cache.core.hotkey.support.HeavyKeeper;
+import io.micrometer.core.instrument.util.NamedThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于本地 HeavyKeeper 的热点Key管理器实现
+ * <p>
+ * 在进程内用固定内存的 Top-K 结构统计访问，不依赖 Redis 统计 ZSet，
+ * 内存与 CPU 开销与 key 基数无关。按 key 哈希分段，每段一把锁，降低并发争用。
+ */
+@Slf4j
+public class TopKHotKeyManager extends AbstractHotKeyManager {
+
+    private final HeavyKeeper[] stripes;
+    private final ScheduledExecutorService scheduler;
+
+    public TopKHotKeyManager(HotKeyProperties properties) {
+        super(properties);
+
+        int stripeCount = stripeCount();
+        this.stripes = new HeavyKeeper[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new HeavyKeeper(properties.getTopN(),
+                    properties.getTopKWidth(),
+                    properties.getTopKDepth(),
+                    properties.getTopKDecay());
+        }
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                new NamedThreadFactory("hotkey-topk-"));
+        scheduler.scheduleWithFixedDelay(this::analyzeHotKeys,
+                properties.getInitialDelay(),
+                properties.getAnalyzeInterval(),
+                TimeUnit.SECONDS);
+        startAccessDrainer();
+    }
+
+    /**
+     * 分段数取不小于 CPU 核数的 2 的幂
+     */
+    private static int stripeCount() {
+        int n = Runtime.getRuntime().availableProcessors();
+        return Integer.highestOneBit(Math.max(1, n - 1)) << 1;
+    }
+
+    private HeavyKeeper stripeFor(String key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+
+    @Override
+    protected void doRecordAccess(String key) {
+        HeavyKeeper stripe = stripeFor(key);
+        synchronized (stripe) {
+            stripe.add(key);
+        }
+    }
+
+    @Override
+    public void addHotKey(String key, long ttlSeconds) {
+        if (!running.get() || key == null || key.isEmpty()) {
+            return;
+        }
+
+        if (addLocalHotKey(key)) {
+            if (properties.isDebug()) {
+                log.debug("[HotKey] New hot key added: {}", key);
+            }
+        }
+    }
+
+    /**
+     * 合并各分段的 Top-K，取全局 TopN 中超过阈值的 key 作为热点，然后整体衰减一次
+     */
+    private void analyzeHotKeys() {
+        if (!running.get()) {
+            return;
+        }
+
+        try {
+            List<Map.Entry<String, Long>> candidates = new ArrayList<>();
+            for (HeavyKeeper stripe : stripes) {
+                synchronized (stripe) {
+                    candidates.addAll(stripe.topK());
+                    stripe.decayAll();
+                }
+            }
+            candidates.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+
+            Map<String, Long> scores = new HashMap<>(candidates.size() * 2);
+            candidates.forEach(candidate -> scores.putIfAbsent(candidate.getKey(), candidate.getValue()));
+            recordScores(scores);
+
+            Set<String> newHotKeys = new HashSet<>();
+            for (Map.Entry<String, Long> candidate : candidates) {
+                if (newHotKeys.size() >= properties.getTopN()
+                        || candidate.getValue() < properties.getHotThreshold()) {
+                    break;
+                }
+                newHotKeys.add(candidate.getKey());
+            }
+
+            applyHotKeys(newHotKeys);
+        } catch (Exception e) {
+            log.error("[HotKey] Analyze hot keys failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        shutdown();
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,77 @@
+package com.muzhou.commons.cache.core.hotkey.support;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 进程内访问计数器
+ * <p>
+ * 每个 key 对应一个 {@link LongAdder}（内部分段计数，高并发下无 CAS 争用），
+ * 计数器在 key 持续被访问期间复用，只有整整一个周期没有访问才会被移除，
+ * 因此热路径上除首次访问外不产生任何对象分配。
+ */
+public class AccessCounter {
+
+    private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final int maxTrackedKeys;
+
+    /**
+     * 超出 key 数量上限而未被统计的访问次数
+     */
+    private final LongAdder overflow = new LongAdder();
+
+    public AccessCounter(int maxTrackedKeys) {
+        this.maxTrackedKeys = maxTrackedKeys;
+    }
+
+    public void increment(String key) {
+        add(key, 1);
+    }
+
+    public void add(String key, long delta) {
+        LongAdder adder = counters.get(key);
+        if (adder == null) {
+            // 超出上限的新 key 直接丢弃，避免基数爆炸撑爆内存
+            if (counters.size() >= maxTrackedKeys) {
+                overflow.add(delta);
+                return;
+            }
+            adder = counters.computeIfAbsent(key, k -> new LongAdder());
+        }
+        adder.add(delta);
+    }
+
+    /**
+     * 取出当前周期内的计数并清零
+     * <p>
+     * 本周期计数为 0 的计数器会被移除。移除与并发自增之间存在极小的竞争窗口，
+     * 最多丢失一次计数，对热点统计没有影响。
+     *
+     * @return key -> 本周期访问次数，仅包含计数大于 0 的 key
+     */
+    public Map<String, Long> drain() {
+        Map<String, Long> snapshot = new HashMap<>();
+        Iterator<Map.Entry<String, LongAdder>> iterator = counters.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, LongAdder> entry = iterator.next();
+            long count = entry.getValue().sumThenReset();
+            if (count > 0) {
+                snapshot.put(entry.getKey(), count);
+            } else {
+                iterator.remove();
+            }
+        }
+        return snapshot;
+    }
+
+    public int size() {
+        return counters.size();
+    }
+
+    public long getOverflowCount() {
+        return overflow.sum();
+    }
+}
@@ -0,0 +1,125 @@
+package com.muzhou.commons.cache.core.hotkey.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 有界无锁的访问记录队列（Vyukov 有界队列）
+ * <p>
+ * 每个槽位带一个序号，生产者按序号判断槽位是否空闲，一次 CAS 占位后写入；
+ * 队列满时不等待、不扩容，直接丢弃并计数，入队耗时与消费速度无关。
+ */
+public class AccessQueue {
+
+    private final int mask;
+    private final AtomicReferenceArray<String> buffer;
+
+    /**
+     * 槽位序号：等于写入位置表示可写，等于写入位置 + 1 表示可读
+     */
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * @param capacity 容量，向上取整为 2 的幂
+     */
+    public AccessQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.mask = size - 1;
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 入队，队列满时丢弃
+     *
+     * @return 是否入队成功
+     */
+    public boolean offer(String key) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer.lazySet(index, key);
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (diff < 0) {
+                // 槽位仍未被消费，队列已满
+                dropped.increment();
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 出队，队列为空时返回 null
+     */
+    public String poll() {
+        long position = head.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - (position + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    String key = buffer.get(index);
+                    buffer.lazySet(index, null);
+                    sequences.lazySet(index, position + mask + 1);
+                    return key;
+                }
+                position = head.get();
+            } else if (diff < 0) {
+                return null;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    /**
+     * 最多取出 maxElements 个元素交给 consumer
+     *
+     * @return 实际取出的数量
+     */
+    public int drain(Consumer<String> consumer, int maxElements) {
+        int drained = 0;
+        String key;
+        while (drained < maxElements && (key = poll()) != null) {
+            consumer.accept(key);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * 近似的当前元素数量
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * 队列满而被丢弃的访问记录数
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+}
@@ -0,0 +1,192 @@
+package com.muzhou.commons.cache.core.hotkey.support;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * HeavyKeeper Top-K 结构
+ * <p>
+ * depth 行 width 列的桶，每个桶保存 key 指纹和计数。命中同指纹则计数加一，
+ * 指纹冲突时以 decay^-count 的概率衰减原计数，计数越大越难被挤掉，
+ * 因此大流量 key 能留在桶里而长尾 key 很快被淘汰。另外维护一个容量为 k 的候选集合作为 Top-K 结果。
+ * <p>
+ * 内存占用固定为 depth * width * 8 字节加 k 个候选，与 key 基数无关。非线程安全，由调用方加锁。
+ */
+public class HeavyKeeper {
+
+    /**
+     * 衰减概率查表上限，计数超过后衰减概率可视为 0
+     */
+    private static final int DECAY_TABLE_SIZE = 256;
+
+    private final int k;
+    private final int width;
+    private final int depth;
+    private final int[][] fingerprints;
+    private final long[][] counts;
+    private final double[] decayTable;
+
+    /**
+     * Top-K 候选，key -> 估计计数
+     */
+    private final Map<String, Long> topK = new HashMap<>();
+    private String minKey;
+    private long minCount;
+
+    public HeavyKeeper(int k, int width, int depth, double decay) {
+        this.k = k;
+        this.width = width;
+        this.depth = depth;
+        this.fingerprints = new int[depth][width];
+        this.counts = new long[depth][width];
+        this.decayTable = new double[DECAY_TABLE_SIZE];
+        for (int i = 0; i < DECAY_TABLE_SIZE; i++) {
+            decayTable[i] = Math.pow(decay, -i);
+        }
+    }
+
+    /**
+     * 记录一次访问
+     *
+     * @return 该 key 当前的估计计数
+     */
+    public long add(String key) {
+        return add(key, 1);
+    }
+
+    public long add(String key, long increment) {
+        int hash = spread(key.hashCode());
+        // 指纹为 0 表示空桶，这里保证指纹非 0
+        int fingerprint = mix(hash, 0x9E3779B9) | 1;
+        long maxCount = 0;
+
+        for (int row = 0; row < depth; row++) {
+            int index = (mix(hash, row + 1) & Integer.MAX_VALUE) % width;
+            long count = counts[row][index];
+
+            if (count == 0) {
+                fingerprints[row][index] = fingerprint;
+                counts[row][index] = increment;
+                maxCount = Math.max(maxCount, increment);
+            } else if (fingerprints[row][index] == fingerprint) {
+                counts[row][index] = count + increment;
+                maxCount = Math.max(maxCount, count + increment);
+            } else {
+                // 指纹冲突，逐次按概率衰减原计数
+                long remaining = increment;
+                while (remaining > 0 && count > 0) {
+                    if (ThreadLocalRandom.current().nextDouble() < decayProbability(count)) {
+                        count--;
+                    }
+                    remaining--;
+                }
+                if (count == 0) {
+                    fingerprints[row][index] = fingerprint;
+                    count = Math.max(remaining, 1);
+                    maxCount = Math.max(maxCount, count);
+                }
+                counts[row][index] = count;
+            }
+        }
+
+        updateTopK(key, maxCount);
+        return maxCount;
+    }
+
+    private void updateTopK(String key, long count) {
+        Long current = topK.get(key);
+        if (current != null) {
+            if (count > current) {
+                topK.put(key, count);
+                if (key.equals(minKey)) {
+                    recomputeMin();
+                }
+            }
+            return;
+        }
+
+        if (topK.size() < k) {
+            topK.put(key, count);
+            if (minKey == null || count < minCount) {
+                minKey = key;
+                minCount = count;
+            }
+            return;
+        }
+
+        if (count > minCount) {
+            topK.remove(minKey);
+            topK.put(key, count);
+            recomputeMin();
+        }
+    }
+
+    private void recomputeMin() {
+        minKey = null;
+        minCount = Long.MAX_VALUE;
+        for (Map.Entry<String, Long> entry : topK.entrySet()) {
+            if (entry.getValue() < minCount) {
+                minKey = entry.getKey();
+                minCount = entry.getValue();
+            }
+        }
+        if (minKey == null) {
+            minCount = 0;
+        }
+    }
+
+    /**
+     * 所有计数减半，使长期不再访问的 key 逐步退出 Top-K
+     */
+    public void decayAll() {
+        for (int row = 0; row < depth; row++) {
+            for (int col = 0; col < width; col++) {
+                counts[row][col] >>= 1;
+            }
+        }
+        Iterator<Map.Entry<String, Long>> iterator = topK.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            long halved = entry.getValue() >> 1;
+            if (halved == 0) {
+                iterator.remove();
+            } else {
+                entry.setValue(halved);
+            }
+        }
+        recomputeMin();
+    }
+
+    /**
+     * 当前 Top-K 候选，按计数降序
+     */
+    public List<Map.Entry<String, Long>> topK() {
+        List<Map.Entry<String, Long>> result = new ArrayList<>(topK.size());
+        for (Map.Entry<String, Long> entry : topK.entrySet()) {
+            result.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue()));
+        }
+        result.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        return result;
+    }
+
+    private double decayProbability(long count) {
+        return count < DECAY_TABLE_SIZE ? decayTable[(int) count] : 0D;
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private static int mix(int hash, int seed) {
+        int h = hash * 0xCC9E2D51 + seed;
+        h = Integer.rotateLeft(h, 15) * 0x1B873593;
+        h ^= h >>> 13;
+        h *= 0x85EBCA6B;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,93 @@
+package com.muzhou.commons.cache.core.hotkey.support;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 基于时间分桶环形数组的滑动窗口计数器
+ * <p>
+ * 每个 key 持有 bucketCount 个桶组成的环和窗口总数。访问只累加当前桶与总数；
+ * 由调用方按桶粒度定时调用 {@link #slide()}，把最旧的桶清零并从总数中扣除，
+ * 因此窗口总数始终是最近 bucketCount 个桶的和，读取是 O(1)。
+ */
+public class SlidingWindowCounter {
+
+    private final int bucketCount;
+    private final int maxTrackedKeys;
+    private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+
+    /**
+     * 当前写入的桶下标，只由 {@link #slide()} 修改
+     */
+    private volatile int current;
+
+    public SlidingWindowCounter(int bucketCount, int maxTrackedKeys) {
+        if (bucketCount < 1) {
+            throw new IllegalArgumentException("bucketCount must be positive");
+        }
+        this.bucketCount = bucketCount;
+        this.maxTrackedKeys = maxTrackedKeys;
+    }
+
+    public void increment(String key) {
+        Window window = windows.get(key);
+        if (window == null) {
+            if (windows.size() >= maxTrackedKeys) {
+                return;
+            }
+            window = windows.computeIfAbsent(key, k -> new Window(bucketCount));
+        }
+        window.buckets.incrementAndGet(current);
+        window.total.incrementAndGet();
+    }
+
+    /**
+     * 窗口前进一个桶：清空即将复用的最旧桶，并移除整个窗口内都没有访问的 key
+     * <p>
+     * 只允许单线程调用
+     */
+    public void slide() {
+        int next = (current + 1) % bucketCount;
+        Iterator<Window> iterator = windows.values().iterator();
+        while (iterator.hasNext()) {
+            Window window = iterator.next();
+            long expired = window.buckets.getAndSet(next, 0);
+            long total = window.total.addAndGet(-expired);
+            if (total <= 0) {
+                iterator.remove();
+            }
+        }
+        current = next;
+    }
+
+    /**
+     * 窗口内访问次数不低于 minCount 的 key
+     */
+    public Map<String, Long> snapshot(long minCount) {
+        Map<String, Long> result = new HashMap<>();
+        for (Map.Entry<String, Window> entry : windows.entrySet()) {
+            long total = entry.getValue().total.get();
+            if (total >= minCount) {
+                result.put(entry.getKey(), total);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return windows.size();
+    }
+
+    private static final class Window {
+        private final AtomicLongArray buckets;
+        private final AtomicLong total = new AtomicLong();
+
+        private Window(int bucketCount) {
+            this.buckets = new AtomicLongArray(bucketCount);
+        }
+    }
+}
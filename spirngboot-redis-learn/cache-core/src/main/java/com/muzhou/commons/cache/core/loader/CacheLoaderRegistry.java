@@ -0,0 +1,59 @@
+package com.muzhou.commons.cache.core.loader;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 数据源加载器注册表，热点预加载时按 key 找到加载器，从数据源重新加载即将过期的值
+ * <p>
+ * 模式针对不带区域前缀的 key，以 ':' 分段，支持 Ant 风格通配符，例如 user:*、order:*:items、product:**。
+ * 多个模式都匹配时使用最先登记的。
+ */
+public class CacheLoaderRegistry {
+
+    private final PathMatcher matcher = new AntPathMatcher(":");
+
+    /**
+     * 模式 -> 加载器，登记时整体替换，读取不加锁
+     */
+    private volatile Map<String, Function<String, ?>> loaders = Collections.emptyMap();
+
+    /**
+     * 登记加载器，同一模式重复登记时覆盖
+     *
+     * @param pattern key 模式
+     * @param loader  根据 key 从数据源加载值，不存在时返回 null
+     */
+    public synchronized void register(String pattern, Function<String, ?> loader) {
+        Map<String, Function<String, ?>> updated = new LinkedHashMap<>(loaders);
+        updated.put(pattern, loader);
+        this.loaders = updated;
+    }
+
+    public synchronized void unregister(String pattern) {
+        Map<String, Function<String, ?>> updated = new LinkedHashMap<>(loaders);
+        updated.remove(pattern);
+        this.loaders = updated;
+    }
+
+    /**
+     * 查找 key 对应的加载器，没有匹配的模式时返回 null
+     */
+    public Function<String, ?> getLoader(String key) {
+        for (Map.Entry<String, Function<String, ?>> entry : loaders.entrySet()) {
+            if (matcher.match(entry.getKey(), key)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    public boolean isEmpty() {
+        return loaders.isEmpty();
+    }
+}
@@ -1,5 +1,6 @@
 package com.muzhou.commons.cache.core.lock;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 public interface DistributedLock {
@@ -15,4 +16,30 @@ public interface DistributedLock {
 
     void unlock(String key);
 
+    /**
+     * 异步尝试获取指定 key 的锁，不等待。与 {@link #tryLock} 是同一把锁，同步和异步的持有者互斥。
+     * 持有者由 ownerId 标识而不是当前线程，可以在任意线程释放，例如 Redisson 的 tryLockAsync(..., threadId)
+     * <p>
+     * 只有 getAsync 需要，默认不支持，返回以 {@link UnsupportedOperationException} 失败的 future
+     *
+     * @param ownerId 持有者标识，不能与线程 id 重复
+     * @param leaseTime 锁自动释放前的最大持有时间
+     */
+    default CompletableFuture<Boolean> tryLockAsync(String key, long ownerId, long leaseTime, TimeUnit unit) {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        future.completeExceptionally(new UnsupportedOperationException(
+                getClass().getName() + " does not support tryLockAsync"));
+        return future;
+    }
+
+    /**
+     * 释放 {@link #tryLockAsync} 获取的锁，只有 ownerId 一致时才释放。默认不支持，返回失败的 future
+     */
+    default CompletableFuture<Void> unlockAsync(String key, long ownerId) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        future.completeExceptionally(new UnsupportedOperationException(
+                getClass().getName() + " does not support unlockAsync"));
+        return future;
+    }
+
 }
@@ -0,0 +1,179 @@
+package com.muzhou.commons.cache.core.metrics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.muzhou.commons.cache.core.cache.support.RedisCircuitBreaker;
+import com.muzhou.commons.cache.core.cache.support.RedisReadCoalescer;
+import com.muzhou.commons.cache.core.hotkey.HotKeyManager;
+import com.muzhou.commons.cache.core.offheap.OffHeapStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多级缓存的 Micrometer 指标，所有指标带 region 标签，分层指标另带 tier 标签（l1、hot、stale、offheap、redis）
+ * <ul>
+ *     <li>multilevel.cache.gets：各层命中、未命中次数（result=hit/miss）</li>
+ *     <li>multilevel.cache.load：数据源加载耗时直方图（result=success/failure）</li>
+ *     <li>multilevel.cache.lock：加载锁获取成功、超时次数，multilevel.cache.lock.wait 为抢锁耗时</li>
+ *     <li>multilevel.cache.lock.fallback：抢锁失败后等待他人加载的结果（result=hit/miss）</li>
+ *     <li>multilevel.cache.evictions：本地缓存按原因（cause）统计的淘汰次数</li>
+ *     <li>multilevel.cache.size、multilevel.cache.hotkeys、multilevel.cache.coalescer.*：当前状态</li>
+ *     <li>multilevel.cache.hotkeys.dropped：访问记录队列满而丢弃的次数</li>
+ *     <li>multilevel.cache.circuit.state：Redis 熔断状态（0 关闭、1 熔断、2 半开），multilevel.cache.circuit.opened 为熔断次数</li>
+ * </ul>
+ * 未提供 MeterRegistry 时使用空的 {@link CompositeMeterRegistry}，记录操作为空操作。
+ */
+public class CacheMetrics {
+
+    private static final String PREFIX = "multilevel.cache";
+    private static final String DEFAULT_REGION = "default";
+
+    private static final String TIER_REDIS = "redis";
+    private static final String TIER_OFF_HEAP = "offheap";
+
+    private final MeterRegistry registry;
+    private final Tags tags;
+
+    private final Counter redisHits;
+    private final Counter redisMisses;
+    private final Timer loadSuccess;
+    private final Timer loadFailure;
+    private final Counter lockAcquired;
+    private final Counter lockTimeout;
+    private final Timer lockWait;
+    private final Counter fallbackHits;
+    private final Counter fallbackMisses;
+
+    /**
+     * @param registry 指标注册表，为空时不记录
+     * @param region   缓存区域，默认区域为空
+     */
+    public CacheMetrics(MeterRegistry registry, String region) {
+        this.registry = registry != null ? registry : new CompositeMeterRegistry();
+        this.tags = Tags.of("region", region != null ? region : DEFAULT_REGION);
+
+        this.redisHits = counter(PREFIX + ".gets", "tier", TIER_REDIS, "result", "hit");
+        this.redisMisses = counter(PREFIX + ".gets", "tier", TIER_REDIS, "result", "miss");
+        this.loadSuccess = loadTimer("success");
+        this.loadFailure = loadTimer("failure");
+        this.lockAcquired = counter(PREFIX + ".lock", "result", "acquired");
+        this.lockTimeout = counter(PREFIX + ".lock", "result", "timeout");
+        this.lockWait = Timer.builder(PREFIX + ".lock.wait")
+                .tags(tags)
+                .register(this.registry);
+        this.fallbackHits = counter(PREFIX + ".lock.fallback", "result", "hit");
+        this.fallbackMisses = counter(PREFIX + ".lock.fallback", "result", "miss");
+    }
+
+    public void recordRedisGet(boolean hit) {
+        (hit ? redisHits : redisMisses).increment();
+    }
+
+    public void recordRedisGets(long hits, long misses) {
+        redisHits.increment(hits);
+        redisMisses.increment(misses);
+    }
+
+    public void recordLoad(long nanos, boolean success) {
+        (success ? loadSuccess : loadFailure).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordLock(boolean acquired, long waitNanos) {
+        (acquired ? lockAcquired : lockTimeout).increment();
+        lockWait.record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 抢锁失败后等待他人加载，hit 表示等到了值
+     */
+    public void recordLockFallback(boolean hit) {
+        (hit ? fallbackHits : fallbackMisses).increment();
+    }
+
+    /**
+     * 只统计被动淘汰（容量、过期、回收），主动删除和覆盖不计入
+     */
+    public void recordEviction(String tier, RemovalCause cause) {
+        if (cause.wasEvicted()) {
+            registry.counter(PREFIX + ".evictions", tags.and("tier", tier, "cause", cause.name())).increment();
+        }
+    }
+
+    /**
+     * 本地缓存的命中、未命中和大小取自 Caffeine 统计，需要开启 recordStats
+     */
+    public void bindLocalCache(String tier, Cache<?, ?> cache) {
+        FunctionCounter.builder(PREFIX + ".gets", cache, c -> c.stats().hitCount())
+                .tags(tags).tags("tier", tier, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder(PREFIX + ".gets", cache, c -> c.stats().missCount())
+                .tags(tags).tags("tier", tier, "result", "miss")
+                .register(registry);
+        Gauge.builder(PREFIX + ".size", cache, Cache::estimatedSize)
+                .tags(tags).tags("tier", tier)
+                .register(registry);
+    }
+
+    public void bindOffHeap(OffHeapStore offHeapStore) {
+        FunctionCounter.builder(PREFIX + ".gets", offHeapStore, OffHeapStore::getHitCount)
+                .tags(tags).tags("tier", TIER_OFF_HEAP, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder(PREFIX + ".gets", offHeapStore, OffHeapStore::getMissCount)
+                .tags(tags).tags("tier", TIER_OFF_HEAP, "result", "miss")
+                .register(registry);
+        FunctionCounter.builder(PREFIX + ".evictions", offHeapStore, OffHeapStore::getEvictionCount)
+                .tags(tags).tags("tier", TIER_OFF_HEAP, "cause", RemovalCause.SIZE.name())
+                .register(registry);
+        Gauge.builder(PREFIX + ".size", offHeapStore, OffHeapStore::size)
+                .tags(tags).tags("tier", TIER_OFF_HEAP)
+                .register(registry);
+    }
+
+    /**
+     * 读合并由所有区域共用，不带 region 标签
+     */
+    public void bindCoalescer(RedisReadCoalescer coalescer) {
+        FunctionCounter.builder(PREFIX + ".coalescer.batches", coalescer, RedisReadCoalescer::getBatchCount)
+                .register(registry);
+        Gauge.builder(PREFIX + ".coalescer.batch.size", coalescer, RedisReadCoalescer::getAverageBatchSize)
+                .register(registry);
+    }
+
+    /**
+     * 热点集合由所有区域共用，不带 region 标签
+     */
+    public void bindHotKeys(HotKeyManager hotKeyManager) {
+        Gauge.builder(PREFIX + ".hotkeys", hotKeyManager, manager -> manager.getHotKeys().size())
+                .register(registry);
+        FunctionCounter.builder(PREFIX + ".hotkeys.dropped", hotKeyManager, HotKeyManager::getDroppedAccessCount)
+                .register(registry);
+    }
+
+    /**
+     * 熔断器由所有区域共用，不带 region 标签
+     */
+    public void bindCircuitBreaker(RedisCircuitBreaker circuitBreaker) {
+        Gauge.builder(PREFIX + ".circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .register(registry);
+        FunctionCounter.builder(PREFIX + ".circuit.opened", circuitBreaker, RedisCircuitBreaker::getOpenedCount)
+                .register(registry);
+    }
+
+    private Counter counter(String name, String... extraTags) {
+        return Counter.builder(name).tags(tags).tags(extraTags).register(registry);
+    }
+
+    private Timer loadTimer(String result) {
+        return Timer.builder(PREFIX + ".load")
+                .tags(tags).tags("result", result)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -0,0 +1,237 @@
+package com.muzhou.commons.cache.core.offheap;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 堆外存储的一个分段：一块直接内存作为环形日志，记录只追加写入
+ * <p>
+ * 记录格式：key 长度(4) + value 长度(4) + 过期时间(8) + key + value，记录不跨越缓冲区末尾。
+ * 空间不足时从最旧的记录开始回收（CLOCK）：已被覆盖、删除或过期的记录直接跳过；
+ * 上一轮被访问过的记录清除访问标记后搬到日志尾部，获得第二次机会；其余记录淘汰。
+ * <p>
+ * 索引在堆内，只保存位置和访问标记；分段内的操作由分段锁串行化。
+ */
+final class OffHeapSegment {
+
+    private static final int HEADER_LENGTH = 16;
+
+    private final ByteBuffer slab;
+    private final int capacity;
+    private final Map<String, Slot> index = new HashMap<>();
+
+    /**
+     * 最旧记录的位置
+     */
+    private int head;
+
+    /**
+     * 下一条记录的写入位置
+     */
+    private int tail;
+
+    /**
+     * 写入位置回绕到开头时旧记录的结束位置，未回绕时为 -1
+     */
+    private int wrapPoint = -1;
+
+    private long evictionCount;
+
+    OffHeapSegment(int capacity) {
+        this.capacity = capacity;
+        this.slab = ByteBuffer.allocateDirect(capacity);
+    }
+
+    synchronized Hit get(String key, long now) {
+        Slot slot = index.get(key);
+        if (slot == null) {
+            return null;
+        }
+        if (slot.expireAt <= now) {
+            index.remove(key);
+            return null;
+        }
+
+        slot.referenced = true;
+        slot.hits++;
+        int keyLength = slab.getInt(slot.offset);
+        int valueLength = slab.getInt(slot.offset + 4);
+        byte[] value = new byte[valueLength];
+        read(slot.offset + HEADER_LENGTH + keyLength, value);
+        return new Hit(value, slot.hits);
+    }
+
+    synchronized boolean put(String key, byte[] value, long expireAt, long now) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int length = HEADER_LENGTH + keyBytes.length + value.length;
+        // 旧记录随索引移除成为无效记录，回收时跳过
+        index.remove(key);
+        if (length > capacity) {
+            return false;
+        }
+
+        int offset = allocate(length, now);
+        slab.putInt(offset, keyBytes.length);
+        slab.putInt(offset + 4, value.length);
+        slab.putLong(offset + 8, expireAt);
+        write(offset + HEADER_LENGTH, keyBytes);
+        write(offset + HEADER_LENGTH + keyBytes.length, value);
+        index.put(key, new Slot(offset, expireAt));
+        return true;
+    }
+
+    synchronized void remove(String key) {
+        index.remove(key);
+    }
+
+    synchronized void clear() {
+        index.clear();
+        head = 0;
+        tail = 0;
+        wrapPoint = -1;
+    }
+
+    synchronized int size() {
+        return index.size();
+    }
+
+    synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * 分配 length 字节的连续空间，不足时回收最旧的记录
+     */
+    private int allocate(int length, long now) {
+        while (true) {
+            if (index.isEmpty()) {
+                head = 0;
+                tail = 0;
+                wrapPoint = -1;
+            }
+            int offset = tryAllocate(length);
+            if (offset >= 0) {
+                return offset;
+            }
+            reclaimHead(now);
+        }
+    }
+
+    /**
+     * 不回收任何记录，直接在空闲区域分配
+     *
+     * @return 分配的位置，空间不足返回 -1
+     */
+    private int tryAllocate(int length) {
+        if (wrapPoint < 0) {
+            if (tail + length <= capacity) {
+                int offset = tail;
+                tail += length;
+                return offset;
+            }
+            // 末尾放不下，回绕到开头使用最旧记录之前的空间
+            if (length <= head) {
+                wrapPoint = tail;
+                tail = length;
+                return 0;
+            }
+            return -1;
+        }
+        if (tail + length <= head) {
+            int offset = tail;
+            tail += length;
+            return offset;
+        }
+        return -1;
+    }
+
+    /**
+     * 回收最旧的一条记录
+     */
+    private void reclaimHead(long now) {
+        int offset = head;
+        int keyLength = slab.getInt(offset);
+        int valueLength = slab.getInt(offset + 4);
+        int length = HEADER_LENGTH + keyLength + valueLength;
+        byte[] keyBytes = new byte[keyLength];
+        read(offset + HEADER_LENGTH, keyBytes);
+        String key = new String(keyBytes, StandardCharsets.UTF_8);
+
+        Slot slot = index.get(key);
+        boolean live = slot != null && slot.offset == offset;
+        byte[] record = null;
+        if (live && slot.referenced && slot.expireAt > now) {
+            // 搬移前先读出整条记录，搬移目标可能与原位置重叠
+            record = new byte[length];
+            read(offset, record);
+        }
+
+        advanceHead(length);
+        if (!live) {
+            return;
+        }
+        if (record != null) {
+            slot.referenced = false;
+            int target = tryAllocate(length);
+            if (target >= 0) {
+                write(target, record);
+                slot.offset = target;
+                return;
+            }
+        }
+        index.remove(key);
+        if (slot.expireAt > now) {
+            evictionCount++;
+        }
+    }
+
+    private void advanceHead(int length) {
+        head += length;
+        if (wrapPoint >= 0 && head >= wrapPoint) {
+            head = 0;
+            wrapPoint = -1;
+        } else if (wrapPoint < 0 && head >= tail) {
+            head = 0;
+            tail = 0;
+        }
+    }
+
+    private void read(int offset, byte[] target) {
+        ByteBuffer view = slab.duplicate();
+        view.position(offset);
+        view.get(target);
+    }
+
+    private void write(int offset, byte[] source) {
+        ByteBuffer view = slab.duplicate();
+        view.position(offset);
+        view.put(source);
+    }
+
+    private static final class Slot {
+        private int offset;
+        private final long expireAt;
+        private boolean referenced;
+        private int hits;
+
+        private Slot(int offset, long expireAt) {
+            this.offset = offset;
+            this.expireAt = expireAt;
+        }
+    }
+
+    /**
+     * 命中结果
+     */
+    static final class Hit {
+        final byte[] value;
+        final int hits;
+
+        Hit(byte[] value, int hits) {
+            this.value = value;
+            this.hits = hits;
+        }
+    }
+}
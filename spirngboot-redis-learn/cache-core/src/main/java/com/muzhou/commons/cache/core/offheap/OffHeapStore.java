@@ -0,0 +1,123 @@
+package com.muzhou.commons.cache.core.offheap;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 堆外键值存储，位于本地缓存和 Redis 之间
+ * <p>
+ * 值以序列化后的字节保存在直接内存中，不占用堆，也不增加 GC 扫描负担。
+ * 按 key 哈希分为多个 {@link OffHeapSegment}，各分段独立加锁、独立淘汰。
+ * 单个分段容量不超过 2GB（ByteBuffer 的上限）。
+ */
+public class OffHeapStore {
+
+    private final OffHeapSegment[] segments;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * @param capacityBytes 总容量（字节）
+     * @param segmentCount  分段数，分段越多锁竞争越小
+     */
+    public OffHeapStore(long capacityBytes, int segmentCount) {
+        int count = Math.max(1, segmentCount);
+        long segmentCapacity = capacityBytes / count;
+        if (segmentCapacity > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment capacity exceeds 2GB, increase segment count");
+        }
+        this.segments = new OffHeapSegment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new OffHeapSegment((int) segmentCapacity);
+        }
+    }
+
+    /**
+     * 读取，命中时返回值和该条目累计的命中次数
+     */
+    public Hit get(String key) {
+        OffHeapSegment.Hit hit = segmentFor(key).get(key, System.currentTimeMillis());
+        if (hit == null) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        return new Hit(hit.value, hit.hits);
+    }
+
+    /**
+     * 写入，单条记录超过分段容量时放弃
+     *
+     * @param expireAt 过期时间戳（毫秒）
+     */
+    public boolean put(String key, byte[] value, long expireAt) {
+        return segmentFor(key).put(key, value, expireAt, System.currentTimeMillis());
+    }
+
+    public void remove(String key) {
+        segmentFor(key).remove(key);
+    }
+
+    public void clear() {
+        for (OffHeapSegment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (OffHeapSegment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 因空间不足被淘汰的条目数
+     */
+    public long getEvictionCount() {
+        long count = 0;
+        for (OffHeapSegment segment : segments) {
+            count += segment.getEvictionCount();
+        }
+        return count;
+    }
+
+    private OffHeapSegment segmentFor(String key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return segments[(hash & Integer.MAX_VALUE) % segments.length];
+    }
+
+    /**
+     * 命中结果
+     */
+    public static final class Hit {
+        private final byte[] value;
+        private final int hits;
+
+        Hit(byte[] value, int hits) {
+            this.value = value;
+            this.hits = hits;
+        }
+
+        public byte[] getValue() {
+            return value;
+        }
+
+        /**
+         * 写入堆外存储后的累计命中次数
+         */
+        public int getHits() {
+            return hits;
+        }
+    }
+}
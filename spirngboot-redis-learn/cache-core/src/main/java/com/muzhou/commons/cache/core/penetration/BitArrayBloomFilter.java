@@ -0,0 +1,128 @@
+package com.muzhou.commons.cache.core.penetration;
+
+import com.google.common.hash.Hashing;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 线程安全的布隆过滤器
+ * <p>
+ * 位序与 Redis bitmap 一致（第 i 位位于第 i/8 个字节的高位起第 i%8 位），
+ * 因此可以直接与 {@link RedisBloomFilter} 的 bitmap 相互合并。
+ */
+public class BitArrayBloomFilter {
+
+    private final AtomicLongArray words;
+    private final long numBits;
+    private final int numHashes;
+
+    public BitArrayBloomFilter(long expectedInsertions, double fpp) {
+        this(optimalNumBits(expectedInsertions, fpp), optimalNumHashes(expectedInsertions, fpp));
+    }
+
+    public BitArrayBloomFilter(long numBits, int numHashes) {
+        // 位数向上取整到 64 的倍数
+        int wordCount = (int) ((numBits + 63) >>> 6);
+        this.words = new AtomicLongArray(wordCount);
+        this.numBits = (long) wordCount << 6;
+        this.numHashes = numHashes;
+    }
+
+    public boolean mightContain(String key) {
+        long[] positions = positions(key, numBits, numHashes);
+        for (long position : positions) {
+            if ((words.get(wordIndex(position)) & bitMask(position)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void put(String key) {
+        for (long position : positions(key, numBits, numHashes)) {
+            int index = wordIndex(position);
+            long mask = bitMask(position);
+            long word;
+            do {
+                word = words.get(index);
+                if ((word & mask) != 0) {
+                    break;
+                }
+            } while (!words.compareAndSet(index, word, word | mask));
+        }
+    }
+
+    /**
+     * 将 Redis bitmap 的内容按位或合并进来
+     */
+    public void merge(byte[] bitmap) {
+        if (bitmap == null) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bitmap).order(ByteOrder.BIG_ENDIAN);
+        int index = 0;
+        while (buffer.remaining() >= Long.BYTES && index < words.length()) {
+            long bits = buffer.getLong();
+            if (bits != 0) {
+                words.getAndAccumulate(index, bits, (a, b) -> a | b);
+            }
+            index++;
+        }
+        // 末尾不足 8 字节的部分
+        if (buffer.hasRemaining() && index < words.length()) {
+            long bits = 0;
+            int shift = 56;
+            while (buffer.hasRemaining()) {
+                bits |= (buffer.get() & 0xFFL) << shift;
+                shift -= 8;
+            }
+            words.getAndAccumulate(index, bits, (a, b) -> a | b);
+        }
+    }
+
+    public long getNumBits() {
+        return numBits;
+    }
+
+    public int getNumHashes() {
+        return numHashes;
+    }
+
+    /**
+     * 计算 key 对应的各个位下标，与 {@link RedisBloomFilter} 共用
+     */
+    static long[] positions(String key, long numBits, int numHashes) {
+        byte[] hash = Hashing.murmur3_128().hashString(key, StandardCharsets.UTF_8).asBytes();
+        ByteBuffer buffer = ByteBuffer.wrap(hash).order(ByteOrder.LITTLE_ENDIAN);
+        long hash1 = buffer.getLong();
+        long hash2 = buffer.getLong();
+
+        long[] positions = new long[numHashes];
+        long combined = hash1;
+        for (int i = 0; i < numHashes; i++) {
+            positions[i] = (combined & Long.MAX_VALUE) % numBits;
+            combined += hash2;
+        }
+        return positions;
+    }
+
+    private static int wordIndex(long position) {
+        return (int) (position >>> 6);
+    }
+
+    private static long bitMask(long position) {
+        return 1L << (63 - (position & 63));
+    }
+
+    static long optimalNumBits(long expectedInsertions, double fpp) {
+        return (long) (-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+    }
+
+    static int optimalNumHashes(long expectedInsertions, double fpp) {
+        long numBits = optimalNumBits(expectedInsertions, fpp);
+        return Math.max(1, (int) Math.round((double) numBits / expectedInsertions * Math.log(2)));
+    }
+}
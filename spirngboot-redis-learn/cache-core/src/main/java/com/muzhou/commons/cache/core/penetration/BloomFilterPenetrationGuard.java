@@ -0,0 +1,214 @@
+package com.muzhou.commons.cache.core.penetration;
+
+import com.muzhou.commons.cache.autoconfigure.properties.CacheProperties;
+import io.micrometer.core.instrument.util.NamedThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 基于布隆过滤器的穿透防护
+ * <p>
+ * 判断只查本地过滤器，一次内存探测即可拦截不存在的 key。
+ * 开启共享模式后，新增 key 同时写入 Redis bitmap，各节点定时将 bitmap 合并到本地，
+ * 因此其他节点新增的 key 最多延迟一个同步周期可见。
+ * <p>
+ * 重建时在旁路构建新的过滤器，构建期间旧过滤器照常服务，构建完成后整体替换，不停机。
+ * 共享模式下重建会递增 Redis 中的版本号，其他节点同步时发现版本变化，用 Redis 的 bitmap 整体替换本地过滤器，
+ * 不再保留已删除 key 的旧位。
+ */
+@Slf4j
+public class BloomFilterPenetrationGuard implements PenetrationGuard {
+
+    private static final String BUILDING_SUFFIX = ":building";
+
+    private final CacheProperties.Penetration properties;
+    private final RedisBloomFilter redisFilter;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile BitArrayBloomFilter filter;
+
+    /**
+     * 重建过程中新登记的 key 同时写入正在构建的过滤器
+     */
+    private volatile BitArrayBloomFilter building;
+
+    /**
+     * 按新版本整体替换期间新登记的 key 同时写入替换后的过滤器
+     */
+    private volatile BitArrayBloomFilter syncing;
+
+    /**
+     * 本地过滤器对应的 Redis bitmap 版本，尚未同步过时为 -1
+     */
+    private long syncedVersion = -1;
+
+    /**
+     * 仅本地过滤器
+     */
+    public BloomFilterPenetrationGuard(CacheProperties.Penetration properties) {
+        this(properties, null);
+    }
+
+    /**
+     * 本地过滤器 + Redis 共享过滤器，redisTemplate 为空时退化为仅本地
+     */
+    public BloomFilterPenetrationGuard(CacheProperties.Penetration properties,
+                                       RedisTemplate<String, Object> redisTemplate) {
+        this.properties = properties;
+        this.filter = newFilter();
+        if (redisTemplate != null && properties.isShared()) {
+            this.redisFilter = new RedisBloomFilter(redisTemplate, properties.getRedisKey(),
+                    filter.getNumBits(), filter.getNumHashes());
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("cache-bloom-"));
+            long interval = properties.getSyncInterval().toMillis();
+            scheduler.scheduleWithFixedDelay(this::syncFromRedis, 0, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.redisFilter = null;
+            this.scheduler = null;
+        }
+    }
+
+    private BitArrayBloomFilter newFilter() {
+        return new BitArrayBloomFilter(properties.getExpectedInsertions(), properties.getFpp());
+    }
+
+    @Override
+    public boolean mightContain(String key) {
+        return filter.mightContain(key);
+    }
+
+    @Override
+    public void put(String key) {
+        filter.put(key);
+        BitArrayBloomFilter current = building;
+        if (current != null) {
+            current.put(key);
+        }
+        BitArrayBloomFilter replacing = syncing;
+        if (replacing != null) {
+            replacing.put(key);
+        }
+        if (redisFilter != null) {
+            try {
+                redisFilter.put(key);
+                if (current != null) {
+                    redisFilter.putAll(redisFilter.getRedisKey() + BUILDING_SUFFIX, Collections.singletonList(key));
+                }
+            } catch (Exception e) {
+                log.warn("[Bloom] Put to redis filter failed, key: {}, error: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 批量预热，追加到当前过滤器
+     *
+     * @param source 以回调方式逐个提供 key，便于从数据库分页流式读取
+     */
+    public void seed(Consumer<Consumer<String>> source) {
+        List<String> batch = new ArrayList<>(properties.getSeedBatchSize());
+        source.accept(key -> {
+            filter.put(key);
+            if (redisFilter != null) {
+                batch.add(key);
+                if (batch.size() >= properties.getSeedBatchSize()) {
+                    redisFilter.putAll(redisFilter.getRedisKey(), batch);
+                    batch.clear();
+                }
+            }
+        });
+        if (redisFilter != null && !batch.isEmpty()) {
+            redisFilter.putAll(redisFilter.getRedisKey(), batch);
+        }
+    }
+
+    /**
+     * 全量重建：在旁路构建新过滤器（共享模式下同时构建新的 bitmap），完成后原子替换
+     * <p>
+     * 用于清除已删除的 key 或数据量增长后按新容量重建
+     */
+    public synchronized void rebuild(Consumer<Consumer<String>> source) {
+        BitArrayBloomFilter rebuilt = newFilter();
+        this.building = rebuilt;
+        String buildingKey = redisFilter != null ? redisFilter.getRedisKey() + BUILDING_SUFFIX : null;
+        List<String> batch = new ArrayList<>(properties.getSeedBatchSize());
+        long[] count = {0};
+
+        try {
+            if (buildingKey != null) {
+                // 清理上次中断的构建残留
+                redisFilter.delete(buildingKey);
+            }
+            source.accept(key -> {
+                rebuilt.put(key);
+                count[0]++;
+                if (buildingKey != null) {
+                    batch.add(key);
+                    if (batch.size() >= properties.getSeedBatchSize()) {
+                        redisFilter.putAll(buildingKey, batch);
+                        batch.clear();
+                    }
+                }
+            });
+            if (buildingKey != null) {
+                if (!batch.isEmpty()) {
+                    redisFilter.putAll(buildingKey, batch);
+                }
+                if (count[0] > 0) {
+                    this.syncedVersion = redisFilter.replaceWith(buildingKey);
+                }
+            }
+            this.filter = rebuilt;
+            log.info("[Bloom] Rebuild finished, keys: {}", count[0]);
+        } finally {
+            this.building = null;
+        }
+    }
+
+    /**
+     * 同步 Redis 共享 bitmap：版本未变时合并到本地过滤器，版本变化（其他节点重建过）时整体替换本地过滤器。
+     * 读取期间版本又发生变化时放弃本轮，下个周期重试。与重建互斥
+     */
+    private synchronized void syncFromRedis() {
+        try {
+            long version = redisFilter.readVersion();
+            if (version == syncedVersion) {
+                filter.merge(redisFilter.readBitmap());
+                return;
+            }
+
+            BitArrayBloomFilter replaced = newFilter();
+            this.syncing = replaced;
+            try {
+                byte[] bitmap = redisFilter.readBitmap();
+                if (bitmap == null || redisFilter.readVersion() != version) {
+                    return;
+                }
+                replaced.merge(bitmap);
+                this.filter = replaced;
+                this.syncedVersion = version;
+                log.info("[Bloom] Replaced local filter with redis bitmap, version: {}", version);
+            } finally {
+                this.syncing = null;
+            }
+        } catch (Exception e) {
+            log.warn("[Bloom] Sync from redis failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
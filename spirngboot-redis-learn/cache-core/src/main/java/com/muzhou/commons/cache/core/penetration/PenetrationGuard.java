@@ -0,0 +1,19 @@
+package com.muzhou.commons.cache.core.penetration;
+
+/**
+ * 缓存穿透防护
+ * <p>
+ * 在查询 Redis 和数据源之前判断 key 是否可能存在，确定不存在的 key 直接返回空。
+ */
+public interface PenetrationGuard {
+
+    /**
+     * key 是否可能存在，返回 false 时一定不存在
+     */
+    boolean mightContain(String key);
+
+    /**
+     * 登记一个存在的 key
+     */
+    void put(String key);
+}
@@ -0,0 +1,130 @@
+package com.muzhou.commons.cache.core.penetration;
+
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 基于 Redis bitmap 的共享布隆过滤器，各节点共用同一个 bitmap
+ * <p>
+ * 位下标计算与 {@link BitArrayBloomFilter} 相同，bitmap 可直接合并到本地过滤器。
+ * 每次重建替换 bitmap 时版本号加一，各节点据此判断本地过滤器是否需要整体替换。
+ */
+public class RedisBloomFilter {
+
+    /**
+     * 批量写入时每个 pipeline 包含的 key 数量
+     */
+    private static final int PIPELINE_BATCH_SIZE = 1000;
+
+    private static final String VERSION_SUFFIX = ":version";
+
+    /**
+     * 替换 bitmap 并递增版本号，返回新版本号
+     */
+    private static final byte[] REPLACE_SCRIPT = ("redis.call('rename', KEYS[1], KEYS[2]) "
+            + "return redis.call('incr', KEYS[3])").getBytes(StandardCharsets.UTF_8);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final String redisKey;
+    private final long numBits;
+    private final int numHashes;
+
+    public RedisBloomFilter(RedisTemplate<String, Object> redisTemplate, String redisKey, long numBits, int numHashes) {
+        this.redisTemplate = redisTemplate;
+        this.redisKey = redisKey;
+        this.numBits = numBits;
+        this.numHashes = numHashes;
+    }
+
+    public boolean mightContain(String key) {
+        long[] positions = BitArrayBloomFilter.positions(key, numBits, numHashes);
+        byte[] rawKey = rawKey(redisKey);
+        List<Object> bits = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (long position : positions) {
+                connection.stringCommands().getBit(rawKey, position);
+            }
+            return null;
+        });
+        for (Object bit : bits) {
+            if (!Boolean.TRUE.equals(bit)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void put(String key) {
+        putAll(redisKey, Collections.singletonList(key));
+    }
+
+    /**
+     * 写入到指定的 bitmap，按批次 pipeline 提交
+     */
+    public void putAll(String targetKey, Iterable<String> keys) {
+        byte[] rawKey = rawKey(targetKey);
+        Iterator<String> iterator = keys.iterator();
+        while (iterator.hasNext()) {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                int count = 0;
+                while (iterator.hasNext() && count++ < PIPELINE_BATCH_SIZE) {
+                    for (long position : BitArrayBloomFilter.positions(iterator.next(), numBits, numHashes)) {
+                        connection.stringCommands().setBit(rawKey, position, true);
+                    }
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * 读取整个 bitmap
+     */
+    public byte[] readBitmap() {
+        byte[] rawKey = rawKey(redisKey);
+        return redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands().get(rawKey));
+    }
+
+    /**
+     * 当前 bitmap 的版本号，从未重建过时为 0
+     */
+    public long readVersion() {
+        byte[] rawVersionKey = rawKey(redisKey + VERSION_SUFFIX);
+        byte[] version = redisTemplate.execute(
+                (RedisCallback<byte[]>) connection -> connection.stringCommands().get(rawVersionKey));
+        return version != null ? Long.parseLong(new String(version, StandardCharsets.UTF_8)) : 0L;
+    }
+
+    /**
+     * 用新构建的 bitmap 原子替换当前 bitmap，同时递增版本号
+     *
+     * @return 替换后的版本号
+     */
+    public long replaceWith(String builtKey) {
+        byte[] rawBuiltKey = rawKey(builtKey);
+        byte[] rawKey = rawKey(redisKey);
+        byte[] rawVersionKey = rawKey(redisKey + VERSION_SUFFIX);
+        Long version = redisTemplate.execute((RedisCallback<Long>) connection -> connection.scriptingCommands()
+                .eval(REPLACE_SCRIPT, ReturnType.INTEGER, 3, rawBuiltKey, rawKey, rawVersionKey));
+        return version != null ? version : 0L;
+    }
+
+    public void delete(String targetKey) {
+        redisTemplate.delete(targetKey);
+    }
+
+    public String getRedisKey() {
+        return redisKey;
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawKey(String key) {
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(key);
+    }
+}
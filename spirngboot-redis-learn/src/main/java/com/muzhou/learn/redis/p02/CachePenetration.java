@@ -0,0 +1,118 @@
+package com.muzhou.learn.redis.p02;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.muzhou.learn.redis.inventory.entity.ProductInventory;
+import com.muzhou.learn.redis.inventory.mapper.ProductInventoryMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 缓存穿透：布隆过滤器方案
+ * <p>
+ * 查询不存在的商品码时，请求会穿过缓存直达数据库。启动时把全部商品码分页灌入布隆过滤器，
+ * 查询前先判断，过滤器判定不存在的商品码直接返回，只消耗一次内存探测。
+ * <p>
+ * 布隆过滤器不支持删除，商品下架后通过 {@link #rebuild()} 全量重建：
+ * 在旁路构建新过滤器，构建完成后替换引用，重建期间旧过滤器照常服务。
+ */
+@Slf4j
+@Component
+public class CachePenetration {
+
+    /**
+     * 预计商品数量
+     */
+    private static final long EXPECTED_INSERTIONS = 1_000_000L;
+
+    /**
+     * 误判率
+     */
+    private static final double FPP = 0.01;
+
+    /**
+     * 分页加载的每页大小
+     */
+    private static final int PAGE_SIZE = 1000;
+
+    @Autowired
+    private ProductInventoryMapper inventoryMapper;
+
+    private volatile BloomFilter<String> bloomFilter = newFilter();
+
+    /**
+     * 重建中的过滤器，重建期间登记的商品码同时写入
+     */
+    private volatile BloomFilter<String> building;
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    /**
+     * 查询库存，不存在的商品码不会访问数据库
+     */
+    public ProductInventory getInventory(String productCode) {
+        if (!bloomFilter.mightContain(productCode)) {
+            return null;
+        }
+        return inventoryMapper.selectOne(
+                new LambdaQueryWrapper<ProductInventory>()
+                        .eq(ProductInventory::getProductCode, productCode)
+        );
+    }
+
+    /**
+     * 新增商品后登记商品码
+     */
+    public void register(String productCode) {
+        bloomFilter.put(productCode);
+        BloomFilter<String> current = building;
+        if (current != null) {
+            current.put(productCode);
+        }
+    }
+
+    /**
+     * 全量重建：按主键游标分页读取商品码写入新过滤器，完成后替换
+     */
+    public synchronized void rebuild() {
+        BloomFilter<String> rebuilt = newFilter();
+        this.building = rebuilt;
+        long lastId = 0L;
+        long total = 0L;
+
+        while (true) {
+            List<ProductInventory> page = inventoryMapper.selectList(
+                    new LambdaQueryWrapper<ProductInventory>()
+                            .select(ProductInventory::getId, ProductInventory::getProductCode)
+                            .gt(ProductInventory::getId, lastId)
+                            .orderByAsc(ProductInventory::getId)
+                            .last("LIMIT " + PAGE_SIZE)
+            );
+            if (page.isEmpty()) {
+                break;
+            }
+            for (ProductInventory inventory : page) {
+                rebuilt.put(inventory.getProductCode());
+            }
+            total += page.size();
+            lastId = page.get(page.size() - 1).getId();
+        }
+
+        this.bloomFilter = rebuilt;
+        this.building = null;
+        log.info("[CachePenetration] Bloom filter rebuilt, product codes: {}", total);
+    }
+
+    private static BloomFilter<String> newFilter() {
+        return BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), EXPECTED_INSERTIONS, FPP);
+    }
+}